@@ -0,0 +1,35 @@
+package com.shop.order_service.cache.listener;
+
+import com.shop.order_service.cache.product.ProductSummaryCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+/**
+ * Evicts product summaries when product-service reports an update or delete ("updated|code", "deleted|code").
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductEventSubscriber implements MessageListener {
+
+    private static final String MESSAGE_SEPARATOR = "|";
+
+    private final ProductSummaryCache productSummaryCache;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split(Pattern.quote(MESSAGE_SEPARATOR), 2);
+        if (parts.length != 2 || parts[1].isBlank()) {
+            log.warn("CACHE: Ignoring malformed product event: {}", body);
+            return;
+        }
+        productSummaryCache.evict(parts[1]);
+    }
+}
@@ -0,0 +1,19 @@
+package com.shop.order_service.cache.product;
+
+import com.shop.order_service.common.dto.response.ProductDtoResponse;
+import lombok.Value;
+
+/**
+ * The part of a product the cart needs when adding or repricing an entry.
+ */
+@Value
+public class ProductSummary {
+    String code;
+    double price;
+    String name;
+    String imageUrl;
+
+    static ProductSummary of(ProductDtoResponse product) {
+        return new ProductSummary(product.getCode(), product.getPrice(), product.getName(), product.getImageUrl());
+    }
+}
@@ -0,0 +1,47 @@
+package com.shop.order_service.cache.product;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shop.order_service.common.client.ProductServiceClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * On-heap product summaries for cart adds and quantity changes.
+ * Entries are dropped as soon as product-service announces a change (see ProductEventSubscriber);
+ * the TTL only bounds staleness when such a message is missed.
+ */
+@Component
+@Slf4j
+public class ProductSummaryCache {
+
+    private final ProductServiceClient productServiceClient;
+    private final Cache<String, ProductSummary> cache;
+
+    public ProductSummaryCache(ProductServiceClient productServiceClient, MeterRegistry meterRegistry,
+                               @Value("${order.product-cache.max-size:10000}") long maxSize,
+                               @Value("${order.product-cache.ttl:PT1M}") Duration ttl) {
+        this.productServiceClient = productServiceClient;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "productSummaries");
+    }
+
+    public ProductSummary get(String code) {
+        // An eviction that arrives while the load is in flight waits for it and then removes the result
+        return cache.get(code, key -> ProductSummary.of(productServiceClient.getProduct(key)));
+    }
+
+    public void evict(String code) {
+        log.debug("CACHE: Evicting product summary: {}", code);
+        cache.invalidate(code);
+    }
+}
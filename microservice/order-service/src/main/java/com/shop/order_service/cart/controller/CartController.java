@@ -91,7 +91,7 @@ public class CartController {
     @DeleteMapping("/admin/{cartCode}")
     public ResponseEntity<Void> deleteCart(@PathVariable("cartCode") String cartCode) {
         log.info("Request received: DELETE /api/cart/admin/{}", cartCode);
-        cartService.removeCartByCode(cartCode);
+        cartSessionService.removeCartByCode(cartCode);
         log.info("Request completed: DELETE /api/cart/admin/{} - Status: 200", cartCode);
         return ResponseEntity.ok().build();
     }
@@ -101,7 +101,7 @@ public class CartController {
             @PathVariable("cartCode") String cartCode,
             @PathVariable("entryCode") String entryCode) {
         log.info("Request received: DELETE /api/cart/admin/{}/entry/{}", cartCode, entryCode);
-        cartService.removeEntryFromCart(cartCode, entryCode);
+        cartSessionService.removeEntryFromCart(cartCode, entryCode);
         log.info("Request completed: DELETE /api/cart/admin/{}/entry/{} - Status: 200", cartCode, entryCode);
         return ResponseEntity.ok().build();
     }
@@ -5,7 +5,10 @@ import com.shop.order_service.cart.dto.response.CartEntryDtoResponse;
 import com.shop.order_service.cart.dto.response.CartDtoResponse;
 import com.shop.order_service.cart.model.CartEntryModel;
 import com.shop.order_service.cart.model.CartModel;
+import com.shop.order_service.cart.session.CartEntryState;
+import com.shop.order_service.cart.session.CartState;
 import com.shop.order_service.common.populator.CommonPopulator;
+import org.mapstruct.BeforeMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
@@ -21,4 +24,23 @@ public abstract class CartPopulator extends CommonPopulator {
     public abstract CartEntryDtoResponse toEntryResponseDto(CartEntryModel entry);
     public abstract List<CartEntryDtoResponse> toEntryResponseDtoList(List<CartEntryModel> entries);
 
+    @Mapping(target = "address", expression = "java(findAddress(state.getAddress()))")
+    public abstract CartDtoResponse toResponseDto(CartState state);
+    @Mapping(target = "product", expression = "java(findProduct(entry.getProduct()))")
+    public abstract CartEntryDtoResponse toEntryResponseDto(CartEntryState entry);
+
+    @BeforeMapping
+    protected void prefetchProducts(CartModel model) {
+        if (model != null && model.getEntries() != null) {
+            prefetchProducts(model.getEntries().stream().map(CartEntryModel::getProduct));
+        }
+    }
+
+    @BeforeMapping
+    protected void prefetchProducts(CartState state) {
+        if (state != null && state.getEntries() != null) {
+            prefetchProducts(state.getEntries().stream().map(CartEntryState::getProduct));
+        }
+    }
+
 }
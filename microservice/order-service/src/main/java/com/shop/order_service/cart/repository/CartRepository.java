@@ -1,14 +1,19 @@
 package com.shop.order_service.cart.repository;
 
 import com.shop.order_service.cart.model.CartModel;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CartRepository extends JpaRepository<CartModel,Long> {
     Optional<CartModel> findByCode(String code);
     Optional<CartModel> findByOwner(String owner);
+    @EntityGraph(attributePaths = "entries")
+    List<CartModel> findByOwnerIn(Collection<String> owners);
 
 }
@@ -3,9 +3,11 @@ package com.shop.order_service.cart.service;
 import com.shop.order_service.cart.model.CartModel;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface CartService {
     CartModel getCart();
+    Optional<CartModel> findCart(String owner);
     CartModel saveCart(CartModel cartModel);
     CartModel getCartByCode(String code);
     void removeCart();
@@ -1,9 +1,10 @@
 package com.shop.order_service.cart.service.impl;
 
+import com.shop.order_service.cache.product.ProductSummary;
+import com.shop.order_service.cache.product.ProductSummaryCache;
 import com.shop.order_service.cart.model.CartModel;
 import com.shop.order_service.cart.repository.CartRepository;
-import com.shop.order_service.common.client.ProductServiceClient;
-import com.shop.order_service.common.dto.response.ProductDtoResponse;
+import com.shop.order_service.common.id.OrderIdGenerator;
 import com.shop.order_service.common.logging.MdcContextUtil;
 import com.shop.order_service.common.utils.UserUtil;
 import com.shop.order_service.cart.dto.request.CartEntryDto;
@@ -15,15 +16,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class DefaultCartEntryService implements CartEntryService {
     private final CartEntryRepository cartEntryRepository;
-    private final ProductServiceClient productServiceClient;
+    private final ProductSummaryCache productSummaryCache;
     private final CartRepository cartRepository;
+    private final OrderIdGenerator orderIdGenerator;
 
     @Override
     public CartEntryModel addCartEntry(CartModel cartModel, CartEntryDto cartEntryDto) {
@@ -31,10 +32,10 @@ public class DefaultCartEntryService implements CartEntryService {
         MdcContextUtil.setProductContext(cartEntryDto.getProduct());
         log.info("CART ENTRY: Adding new entry - cartCode: {}, productCode: {}, quantity: {}", cartModel.getCode(), cartEntryDto.getProduct(), cartEntryDto.getQuantity());
 
-        ProductDtoResponse product = productServiceClient.getProduct(cartEntryDto.getProduct());
+        ProductSummary product = productSummaryCache.get(cartEntryDto.getProduct());
 
         CartEntryModel cartEntryModel = new CartEntryModel();
-        cartEntryModel.setCode(UUID.randomUUID().toString());
+        cartEntryModel.setCode(orderIdGenerator.nextCode());
         cartEntryModel.setBasePrice(product.getPrice());
         cartEntryModel.setQuantity(cartEntryDto.getQuantity());
         cartEntryModel.setTotalPrice(cartEntryModel.getBasePrice() * cartEntryModel.getQuantity());
@@ -59,7 +60,7 @@ public class DefaultCartEntryService implements CartEntryService {
             throw new RuntimeException("Cannot Find Cart Entry");
         }
 
-        ProductDtoResponse product = productServiceClient.getProduct(cartEntryDto.getProduct());
+        ProductSummary product = productSummaryCache.get(cartEntryDto.getProduct());
         CartEntryModel cartEntryModel = cartEntryModelOptional.get();
         cartEntryModel.setBasePrice(product.getPrice());
         cartEntryModel.setQuantity(cartEntryDto.getQuantity());
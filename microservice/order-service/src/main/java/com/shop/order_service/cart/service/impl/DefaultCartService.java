@@ -1,6 +1,7 @@
 package com.shop.order_service.cart.service.impl;
 
 import com.shop.order_service.cart.model.CartEntryModel;
+import com.shop.order_service.common.id.OrderIdGenerator;
 import com.shop.order_service.common.logging.MdcContextUtil;
 import com.shop.order_service.common.utils.UserUtil;
 import com.shop.order_service.cart.model.CartModel;
@@ -13,7 +14,6 @@ import org.springframework.stereotype.Service;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -21,6 +21,7 @@ import java.util.UUID;
 public class DefaultCartService implements CartService {
 
     private final CartRepository cartRepository;
+    private final OrderIdGenerator orderIdGenerator;
 
     @Override
     public CartModel getCart() {
@@ -38,7 +39,7 @@ public class DefaultCartService implements CartService {
         log.info("CART: Creating new cart for user: {}", currentUser);
         CartModel cartModel = new CartModel();
         cartModel.setOwner(currentUser);
-        cartModel.setCode(UUID.randomUUID().toString());
+        cartModel.setCode(orderIdGenerator.nextCode());
         cartModel.setTotalPrice(0D);
         cartModel.setEntries(new ArrayList<>());
 
@@ -48,6 +49,13 @@ public class DefaultCartService implements CartService {
         return savedCart;
     }
 
+    @Override
+    public Optional<CartModel> findCart(String owner) {
+        log.debug("CART: Loading stored cart for user: {}", owner);
+        // Entries fetched with the cart, callers copy them outside any transaction
+        return cartRepository.findByOwnerIn(List.of(owner)).stream().findFirst();
+    }
+
     @Override
     public CartModel getCartByCode(String code) {
         MdcContextUtil.setCartContext(code);
@@ -1,5 +1,7 @@
 package com.shop.order_service.cart.service.impl;
 
+import com.shop.order_service.cache.product.ProductSummary;
+import com.shop.order_service.cache.product.ProductSummaryCache;
 import com.shop.order_service.cache.services.CacheService;
 import com.shop.order_service.cart.dto.response.AddressDtoResponse;
 import com.shop.order_service.cart.dto.response.CartDtoResponse;
@@ -7,28 +9,37 @@ import com.shop.order_service.cart.dto.request.CartEntryDto;
 import com.shop.order_service.cart.model.CartEntryModel;
 import com.shop.order_service.cart.model.CartModel;
 import com.shop.order_service.cart.populator.CartPopulator;
-import com.shop.order_service.cart.service.CartEntryService;
 import com.shop.order_service.cart.service.CartService;
+import com.shop.order_service.cart.session.CartEntryState;
+import com.shop.order_service.cart.session.CartState;
+import com.shop.order_service.cart.session.CartStateStore;
+import com.shop.order_service.cart.session.CartWriteBehind;
+import com.shop.order_service.common.id.OrderIdGenerator;
 import com.shop.order_service.common.client.CustomerServiceClient;
 import com.shop.order_service.common.logging.MdcContextUtil;
 import com.shop.order_service.common.utils.UserUtil;
 import com.shop.order_service.payment.type.PaymentMethod;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Cart operations for the current user. Carts live in Redis ({@link CartStateStore}) and reach MySQL
+ * through {@link CartWriteBehind}; the "cart:" entry is the rendered response built from that state.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class DefaultCartSessionService {
 
-    private final RedisTemplate<String, Object> redisTemplate;
-    private final CartEntryService cartEntryService;
     private final CartService cartService;
+    private final CartStateStore cartStateStore;
+    private final CartWriteBehind cartWriteBehind;
+    private final OrderIdGenerator orderIdGenerator;
+    private final ProductSummaryCache productSummaryCache;
     private final CartPopulator cartPopulator;
     private final CustomerServiceClient customerServiceClient;
     private final CacheService cacheService;
@@ -53,9 +64,8 @@ public class DefaultCartSessionService {
             return cachedCart;
         }
 
-        log.debug("CART SESSION: Cache miss for user: {}, loading from database", currentUser);
-        CartModel cart = cartService.getCart();
-        CartDtoResponse data = cartPopulator.toResponseDto(cart);
+        log.debug("CART SESSION: Cache miss for user: {}, building from cart state", currentUser);
+        CartDtoResponse data = cartPopulator.toResponseDto(loadState(currentUser));
         MdcContextUtil.setCartContext(data.getCode());
         saveCartSession(data);
         return data;
@@ -64,53 +74,60 @@ public class DefaultCartSessionService {
     public void addToCart(CartEntryDto cartEntryDto) {
         log.info("CART SESSION: Adding product to cart - productCode: {}, quantity: {}", cartEntryDto.getProduct(), cartEntryDto.getQuantity());
 
-        CartModel cartModel = cartService.getCart();
-        MdcContextUtil.setCartContext(cartModel.getCode());
-
-        Optional<CartEntryModel> cartEntryModelOptional = cartModel.getEntries().stream().filter(e-> e.getProduct().equals(cartEntryDto.getProduct())).findFirst();
-        if (cartEntryModelOptional.isPresent()){
-            CartEntryModel cartEntryModel = cartEntryModelOptional.get();
-            int newQuantity = cartEntryModel.getQuantity() + cartEntryDto.getQuantity();
-            log.info("CART SESSION: Updating existing entry quantity - entryCode: {}, oldQuantity: {}, newQuantity: {}", cartEntryModel.getCode(), cartEntryModel.getQuantity(), newQuantity);
-            cartEntryModel.setQuantity(newQuantity);
-            CartEntryModel saveCartEntry = cartEntryService.saveCartEntry(cartEntryModel);
-            CartModel cart = saveCartEntry.getCart();
-            recalculateTotal(cart);
-            CartDtoResponse data = cartPopulator.toResponseDto(cart);
-            saveCartSession(data);
-            return;
+        CartState cart = loadState(UserUtil.current());
+        MdcContextUtil.setCartContext(cart.getCode());
+
+        Optional<CartEntryState> existingEntry = cart.getEntries().stream().filter(e-> e.getProduct().equals(cartEntryDto.getProduct())).findFirst();
+        if (existingEntry.isPresent()){
+            CartEntryState entry = existingEntry.get();
+            int newQuantity = entry.getQuantity() + cartEntryDto.getQuantity();
+            log.info("CART SESSION: Updating existing entry quantity - entryCode: {}, oldQuantity: {}, newQuantity: {}", entry.getCode(), entry.getQuantity(), newQuantity);
+            entry.setQuantity(newQuantity);
+        } else {
+            log.info("CART SESSION: Adding new entry to cart - cartCode: {}", cart.getCode());
+            MdcContextUtil.setProductContext(cartEntryDto.getProduct());
+            ProductSummary product = productSummaryCache.get(cartEntryDto.getProduct());
+            CartEntryState entry = new CartEntryState();
+            entry.setCode(orderIdGenerator.nextCode());
+            entry.setProduct(product.getCode());
+            entry.setOwner(cart.getOwner());
+            entry.setBasePrice(product.getPrice());
+            entry.setQuantity(cartEntryDto.getQuantity());
+            cart.getEntries().add(entry);
         }
-        log.info("CART SESSION: Adding new entry to cart - cartCode: {}", cartModel.getCode());
-        cartEntryService.addCartEntry(cartModel, cartEntryDto);
-        recalculateTotal(cartModel);
-        CartModel savedCart = cartService.saveCart(cartModel);
-        CartDtoResponse data = cartPopulator.toResponseDto(savedCart);
-        saveCartSession(data);
+        writeState(cart);
     }
 
     public void removeFromCart(String entry) {
         log.info("CART SESSION: Removing entry from cart - entryCode: {}", entry);
-        CartModel cart = cartService.getCart();
+        CartState cart = loadState(UserUtil.current());
         MdcContextUtil.setCartContext(cart.getCode());
 
-        cartEntryService.deleteCartEntry(cart, entry);
-        recalculateTotal(cart);
-        CartModel cartModel = cartService.saveCart(cart);
-        CartDtoResponse cartData = cartPopulator.toResponseDto(cartModel);
-        saveCartSession(cartData);
+        if (!cart.getEntries().removeIf(e -> e.getCode().equals(entry))) {
+            log.warn("CART SESSION: Entry not found for deletion - entryCode: {}", entry);
+            throw new RuntimeException("Entry Not Found");
+        }
+        writeState(cart);
         log.info("CART SESSION: Entry removed successfully - cartCode: {}, newTotal: {}", cart.getCode(), cart.getTotalPrice());
     }
 
     public void updateQuantity(CartEntryDto cartEntryDto) {
         log.info("CART SESSION: Updating entry quantity - entryCode: {}, newQuantity: {}", cartEntryDto.getCode(), cartEntryDto.getQuantity());
-        CartEntryModel cartEntryModel = cartEntryService.updateCartEntry(cartEntryDto);
-        CartModel cart = cartEntryModel.getCart();
+        CartState cart = loadState(UserUtil.current());
         MdcContextUtil.setCartContext(cart.getCode());
 
-        recalculateTotal(cart);
-        CartModel cartModel = cartService.saveCart(cart);
-        CartDtoResponse cartData = cartPopulator.toResponseDto(cartModel);
-        saveCartSession(cartData);
+        CartEntryState entry = cart.getEntries().stream()
+                .filter(e -> e.getCode().equals(cartEntryDto.getCode()))
+                .findFirst()
+                .orElseThrow(() -> {
+                    log.warn("CART SESSION: Entry not found - entryCode: {}", cartEntryDto.getCode());
+                    return new RuntimeException("Cannot Find Cart Entry");
+                });
+        // Price refreshed on every quantity change, as before
+        ProductSummary product = productSummaryCache.get(entry.getProduct());
+        entry.setBasePrice(product.getPrice());
+        entry.setQuantity(cartEntryDto.getQuantity());
+        writeState(cart);
         log.info("CART SESSION: Quantity updated - cartCode: {}, newTotal: {}", cart.getCode(), cart.getTotalPrice());
     }
 
@@ -119,45 +136,131 @@ public class DefaultCartSessionService {
         cacheService.removeCache(CART_SESSION_PREFIX, UserUtil.current());
     }
 
-    private void recalculateTotal(CartModel cartModel) {
-        double total = 0.0;
-        if (cartModel.getEntries() != null) {
-            for (CartEntryModel entry : cartModel.getEntries()) {
-                double entryTotal = entry.getBasePrice() * entry.getQuantity();
-                total += entryTotal;
-                entry.setTotalPrice(entryTotal);
+    /**
+     * Pushes the current user's cart to MySQL before checkout reads it from there,
+     * and keeps background flushes away from it until the checkout transaction completes.
+     */
+    public void flushCart() {
+        log.debug("CART SESSION: Flushing cart for user: {}", UserUtil.current());
+        cartWriteBehind.flushAndHold(UserUtil.current());
+    }
+
+    /**
+     * Drops the current user's cart from Redis once it has been turned into an order.
+     * Checkout still holds the claim taken by flushCart, so no flush that read the state earlier can be in flight.
+     */
+    public void discardCart() {
+        String currentUser = UserUtil.current();
+        log.info("CART SESSION: Discarding cart for user: {}", currentUser);
+        cartStateStore.delete(currentUser);
+        cacheService.removeCache(CART_SESSION_PREFIX, currentUser);
+    }
+
+    public void removeCartByCode(String code) {
+        CartModel cart = cartService.getCartByCode(code);
+        log.info("CART SESSION: Removing cart by code - cartCode: {}, owner: {}", code, cart.getOwner());
+        // Redis first, otherwise a pending flush would write the cart back
+        cartStateStore.delete(cart.getOwner());
+        cacheService.removeCache(CART_SESSION_PREFIX, cart.getOwner());
+        // A flush already in progress may have read the state before the delete, let it finish first
+        cartWriteBehind.awaitIdle(cart.getOwner());
+        cartService.removeCartByCode(code);
+    }
+
+    public void removeEntryFromCart(String cartCode, String entryCode) {
+        CartModel cartModel = cartService.getCartByCode(cartCode);
+        CartState cart = cartStateStore.get(cartModel.getOwner());
+        if (cart == null || !cart.getCode().equals(cartCode)) {
+            cartService.removeEntryFromCart(cartCode, entryCode);
+            return;
+        }
+        log.info("CART SESSION: Removing entry from cart state - cartCode: {}, entryCode: {}", cartCode, entryCode);
+        cart.getEntries().removeIf(entry -> entry.getCode().equals(entryCode));
+        recalculateTotal(cart);
+        cartStateStore.write(cart);
+        cacheService.removeCache(CART_SESSION_PREFIX, cart.getOwner());
+    }
+
+    private CartState loadState(String owner) {
+        CartState cart = cartStateStore.get(owner);
+        if (cart != null) {
+            return cart;
+        }
+        cart = cartService.findCart(owner)
+                .map(this::toState)
+                .orElseGet(() -> {
+                    log.info("CART SESSION: Starting new cart for user: {}", owner);
+                    CartState state = new CartState();
+                    state.setOwner(owner);
+                    state.setCode(orderIdGenerator.nextCode());
+                    return state;
+                });
+        cartStateStore.put(cart);
+        return cart;
+    }
+
+    private void writeState(CartState cart) {
+        recalculateTotal(cart);
+        cartStateStore.write(cart);
+        saveCartSession(cartPopulator.toResponseDto(cart));
+    }
+
+    private CartState toState(CartModel model) {
+        CartState state = new CartState();
+        state.setCode(model.getCode());
+        state.setOwner(model.getOwner());
+        state.setTotalPrice(model.getTotalPrice());
+        state.setAddress(model.getAddress());
+        state.setPaymentMethod(model.getPaymentMethod());
+        if (model.getEntries() != null) {
+            for (CartEntryModel entryModel : model.getEntries()) {
+                CartEntryState entry = new CartEntryState();
+                entry.setCode(entryModel.getCode());
+                entry.setProduct(entryModel.getProduct());
+                entry.setOwner(entryModel.getOwner());
+                entry.setQuantity(entryModel.getQuantity());
+                entry.setBasePrice(entryModel.getBasePrice());
+                entry.setTotalPrice(entryModel.getTotalPrice());
+                state.getEntries().add(entry);
             }
         }
-        cartModel.setTotalPrice(total);
+        return state;
+    }
+
+    private void recalculateTotal(CartState cart) {
+        double total = 0.0;
+        for (CartEntryState entry : cart.getEntries()) {
+            double entryTotal = entry.getBasePrice() * entry.getQuantity();
+            total += entryTotal;
+            entry.setTotalPrice(entryTotal);
+        }
+        cart.setTotalPrice(total);
     }
 
     public void extendSessionTTL() {
         log.debug("CART SESSION: Extending TTL for user: {}", UserUtil.current());
         cacheService.extendCache(CART_SESSION_PREFIX, UserUtil.current(), CART_SESSION_TTL_HOURS, TimeUnit.HOURS);
+        cartStateStore.touch(UserUtil.current());
     }
 
     public void updateAddress(Long id) {
         log.info("CART SESSION: Updating cart address - addressId: {}", id);
         AddressDtoResponse address = customerServiceClient.getAddress(id);
-        CartModel cart = cartService.getCart();
+        CartState cart = loadState(UserUtil.current());
         MdcContextUtil.setCartContext(cart.getCode());
 
         cart.setAddress(address.getId());
-        CartModel cartModel = cartService.saveCart(cart);
-        CartDtoResponse cartData = cartPopulator.toResponseDto(cartModel);
-        saveCartSession(cartData);
+        writeState(cart);
         log.info("CART SESSION: Address updated - cartCode: {}, addressId: {}", cart.getCode(), id);
     }
 
     public void updatePayment(PaymentMethod paymentMethod) {
         log.info("CART SESSION: Updating payment method - paymentMethod: {}", paymentMethod);
-        CartModel cart = cartService.getCart();
+        CartState cart = loadState(UserUtil.current());
         MdcContextUtil.setCartContext(cart.getCode());
 
         cart.setPaymentMethod(paymentMethod);
-        CartModel cartModel = cartService.saveCart(cart);
-        CartDtoResponse cartData = cartPopulator.toResponseDto(cartModel);
-        saveCartSession(cartData);
+        writeState(cart);
         log.info("CART SESSION: Payment method updated - cartCode: {}, paymentMethod: {}", cart.getCode(), paymentMethod);
     }
 }
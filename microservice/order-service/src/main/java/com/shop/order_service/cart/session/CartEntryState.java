@@ -0,0 +1,16 @@
+package com.shop.order_service.cart.session;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+@Data
+public class CartEntryState implements Serializable {
+
+    private String code;
+    private String product;
+    private String owner;
+    private Integer quantity;
+    private double basePrice;
+    private double totalPrice;
+}
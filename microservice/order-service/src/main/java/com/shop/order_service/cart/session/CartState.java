@@ -0,0 +1,23 @@
+package com.shop.order_service.cart.session;
+
+import com.shop.order_service.payment.type.PaymentMethod;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-flight cart as held in Redis, the system of record until checkout.
+ * MySQL receives a copy through {@link CartWriteBehind}.
+ */
+@Data
+public class CartState implements Serializable {
+
+    private String code;
+    private String owner;
+    private double totalPrice;
+    private Long address;
+    private PaymentMethod paymentMethod;
+    private List<CartEntryState> entries = new ArrayList<>();
+}
@@ -0,0 +1,246 @@
+package com.shop.order_service.cart.session;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Redis side of the write-behind cart: one state value per owner plus two sorted sets.
+ * "dirty" holds owners changed since their last flush, scored by when they first became dirty;
+ * "processing" holds owners a writer has claimed, scored by claim time. Both live in Redis,
+ * so a writer that dies mid-flush leaves its claims behind and another one picks them up.
+ * A deliberate delete leaves a tombstone; a state missing without one expired or was evicted, and MySQL keeps the cart.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CartStateStore {
+
+    public enum Claim { CLAIMED, CLEAN, BUSY }
+
+    // Stale claims first, then the oldest dirty owners past the coalescing delay, moved to processing atomically
+    private static final RedisScript<List> CLAIM_DUE = new DefaultRedisScript<>("""
+            local owners = redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', ARGV[3], 'LIMIT', 0, ARGV[4])
+            local remaining = tonumber(ARGV[4]) - #owners
+            if remaining > 0 then
+                local due = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[2], 'LIMIT', 0, remaining)
+                for _, owner in ipairs(due) do
+                    redis.call('ZREM', KEYS[1], owner)
+                    table.insert(owners, owner)
+                end
+            end
+            for _, owner in ipairs(owners) do
+                redis.call('ZADD', KEYS[2], ARGV[1], owner)
+            end
+            return owners
+            """, List.class);
+
+    // 1 claimed, 0 nothing to flush, -1 another writer holds a live claim
+    private static final RedisScript<Long> CLAIM_ONE = new DefaultRedisScript<>("""
+            local claimedAt = redis.call('ZSCORE', KEYS[2], ARGV[1])
+            if claimedAt and tonumber(claimedAt) > tonumber(ARGV[3]) then
+                return -1
+            end
+            local dirty = redis.call('ZREM', KEYS[1], ARGV[1])
+            if dirty == 0 and not claimedAt then
+                return 0
+            end
+            redis.call('ZADD', KEYS[2], ARGV[2], ARGV[1])
+            return 1
+            """, Long.class);
+
+    // Like CLAIM_ONE, but claims a clean owner too: 1 claimed with something to flush, 0 claimed clean, -1 busy
+    private static final RedisScript<Long> HOLD = new DefaultRedisScript<>("""
+            local claimedAt = redis.call('ZSCORE', KEYS[2], ARGV[1])
+            if claimedAt and tonumber(claimedAt) > tonumber(ARGV[3]) then
+                return -1
+            end
+            local dirty = redis.call('ZREM', KEYS[1], ARGV[1])
+            redis.call('ZADD', KEYS[2], ARGV[2], ARGV[1])
+            if dirty == 1 or claimedAt then
+                return 1
+            end
+            return 0
+            """, Long.class);
+
+    // State and dirty marker in one step: a claim can never see the marker without the state it refers to.
+    // A new state also lifts an earlier delete
+    private static final RedisScript<Long> WRITE = new DefaultRedisScript<>("""
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+            redis.call('DEL', KEYS[3])
+            return redis.call('ZADD', KEYS[2], 'NX', ARGV[3], ARGV[4])
+            """, Long.class);
+
+    // Drops the state and leaves a tombstone, the only thing that lets a flush delete the MySQL cart
+    private static final RedisScript<Long> DELETE = new DefaultRedisScript<>("""
+            redis.call('DEL', KEYS[1])
+            redis.call('SET', KEYS[3], '1', 'PX', ARGV[2])
+            return redis.call('ZREM', KEYS[2], ARGV[1])
+            """, Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${spring.application.name}")
+    private String serviceName;
+
+    @Value("${order.cart.state-ttl:P7D}")
+    private Duration stateTtl;
+
+    @Value("${order.cart.write-behind.claim-timeout:PT1M}")
+    private Duration claimTimeout;
+
+    public CartState get(String owner) {
+        Object value = redisTemplate.opsForValue().get(stateKey(owner));
+        return value instanceof CartState state ? state : null;
+    }
+
+    public Map<String, CartState> getAll(List<String> owners) {
+        List<Object> values = redisTemplate.opsForValue().multiGet(owners.stream().map(this::stateKey).toList());
+        Map<String, CartState> states = new HashMap<>();
+        for (int i = 0; i < owners.size(); i++) {
+            if (values != null && values.get(i) instanceof CartState state) {
+                states.put(owners.get(i), state);
+            }
+        }
+        return states;
+    }
+
+    /**
+     * Caches a state that already matches MySQL, without scheduling a flush.
+     */
+    public void put(CartState state) {
+        redisTemplate.opsForValue().set(stateKey(state.getOwner()), state, stateTtl);
+    }
+
+    /**
+     * Records a change: stores the state and marks the owner dirty atomically.
+     * A writer that claimed the owner earlier may flush the previous state, but the owner is dirty again
+     * afterwards, so the new state is always flushed too.
+     */
+    @SuppressWarnings("unchecked")
+    public void write(CartState state) {
+        // Same serializer as put(), so get() reads both alike
+        byte[] value = ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(state);
+        stringRedisTemplate.execute(WRITE, List.of(stateKey(state.getOwner()), dirtyKey(), deletedKey(state.getOwner())),
+                new String(value, StandardCharsets.UTF_8), String.valueOf(stateTtl.toMillis()),
+                String.valueOf(System.currentTimeMillis()), state.getOwner());
+    }
+
+    public void markDirty(String owner) {
+        // Keeps the first timestamp, so a cart that keeps changing is still flushed within the lag bound
+        stringRedisTemplate.opsForZSet().addIfAbsent(dirtyKey(), owner, System.currentTimeMillis());
+    }
+
+    /**
+     * Removes the cart on purpose (checkout, admin delete). A state that merely expired or was evicted
+     * leaves no tombstone, and the MySQL copy is kept.
+     */
+    public void delete(String owner) {
+        stringRedisTemplate.execute(DELETE, List.of(stateKey(owner), dirtyKey(), deletedKey(owner)),
+                owner, String.valueOf(stateTtl.toMillis()));
+    }
+
+    /**
+     * The owners among the given ones whose cart was deleted on purpose.
+     */
+    public Set<String> deletedOf(List<String> owners) {
+        List<String> markers = stringRedisTemplate.opsForValue().multiGet(owners.stream().map(this::deletedKey).toList());
+        Set<String> deleted = new HashSet<>();
+        for (int i = 0; i < owners.size(); i++) {
+            if (markers != null && markers.get(i) != null) {
+                deleted.add(owners.get(i));
+            }
+        }
+        return deleted;
+    }
+
+    public void touch(String owner) {
+        redisTemplate.expire(stateKey(owner), stateTtl);
+    }
+
+    public List<String> claimDue(Duration coalesce, int limit) {
+        long now = System.currentTimeMillis();
+        List<?> owners = stringRedisTemplate.execute(CLAIM_DUE, List.of(dirtyKey(), processingKey()),
+                String.valueOf(now), String.valueOf(now - coalesce.toMillis()),
+                String.valueOf(now - claimTimeout.toMillis()), String.valueOf(limit));
+        List<String> claimed = new ArrayList<>();
+        if (owners != null) {
+            owners.forEach(owner -> claimed.add(String.valueOf(owner)));
+        }
+        return claimed;
+    }
+
+    public Claim claim(String owner) {
+        long now = System.currentTimeMillis();
+        Long result = stringRedisTemplate.execute(CLAIM_ONE, List.of(dirtyKey(), processingKey()),
+                owner, String.valueOf(now), String.valueOf(now - claimTimeout.toMillis()));
+        if (result == null || result == 0) {
+            return Claim.CLEAN;
+        }
+        return result > 0 ? Claim.CLAIMED : Claim.BUSY;
+    }
+
+    /**
+     * Claims the owner whether or not it is dirty, so no other writer touches the cart until it is released.
+     */
+    public Claim hold(String owner) {
+        long now = System.currentTimeMillis();
+        Long result = stringRedisTemplate.execute(HOLD, List.of(dirtyKey(), processingKey()),
+                owner, String.valueOf(now), String.valueOf(now - claimTimeout.toMillis()));
+        if (result == null || result < 0) {
+            return Claim.BUSY;
+        }
+        return result > 0 ? Claim.CLAIMED : Claim.CLEAN;
+    }
+
+    /**
+     * Whether a writer holds a live claim on the owner, stale claims of a dead writer do not count.
+     */
+    public boolean isClaimed(String owner) {
+        Double claimedAt = stringRedisTemplate.opsForZSet().score(processingKey(), owner);
+        return claimedAt != null && claimedAt > System.currentTimeMillis() - claimTimeout.toMillis();
+    }
+
+    public void release(Collection<String> owners) {
+        if (!owners.isEmpty()) {
+            stringRedisTemplate.opsForZSet().remove(processingKey(), owners.toArray());
+        }
+    }
+
+    public Long dirtyCount() {
+        return stringRedisTemplate.opsForZSet().zCard(dirtyKey());
+    }
+
+    private String stateKey(String owner) {
+        return serviceName + ":cart-state:" + owner;
+    }
+
+    private String deletedKey(String owner) {
+        return serviceName + ":cart-deleted:" + owner;
+    }
+
+    private String dirtyKey() {
+        return serviceName + ":cart-dirty";
+    }
+
+    private String processingKey() {
+        return serviceName + ":cart-processing";
+    }
+}
@@ -0,0 +1,220 @@
+package com.shop.order_service.cart.session;
+
+import com.shop.order_service.cart.model.CartEntryModel;
+import com.shop.order_service.cart.model.CartModel;
+import com.shop.order_service.cart.repository.CartRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Copies carts from Redis to p_carts / p_cart_entry in the background.
+ * Changes to the same cart within the coalescing delay collapse into one write, and every flush
+ * persists whole carts for up to a batch of owners in a single transaction.
+ * Lag is bounded by coalesce + flush interval while the writer keeps up with the dirty set.
+ */
+@Component
+@Slf4j
+public class CartWriteBehind {
+
+    private final CartStateStore cartStateStore;
+    private final CartRepository cartRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${order.cart.write-behind.coalesce:PT2S}")
+    private Duration coalesce;
+
+    @Value("${order.cart.write-behind.batch-size:200}")
+    private int batchSize;
+
+    @Value("${order.cart.write-behind.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Value("${order.cart.write-behind.sync-flush-timeout:PT5S}")
+    private Duration syncFlushTimeout;
+
+    public CartWriteBehind(CartStateStore cartStateStore, CartRepository cartRepository,
+                           PlatformTransactionManager transactionManager) {
+        this.cartStateStore = cartStateStore;
+        this.cartRepository = cartRepository;
+        // Own transaction, so a flush forced from inside checkout commits even if the order later rolls back
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Scheduled(fixedDelayString = "${order.cart.write-behind.flush-interval-ms:1000}")
+    public void flushDue() {
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<String> owners;
+            try {
+                owners = cartStateStore.claimDue(coalesce, batchSize);
+            } catch (Exception e) {
+                log.warn("CART: Write-behind claim failed: {}", e.getMessage());
+                return;
+            }
+            if (owners.isEmpty()) {
+                return;
+            }
+            persistBatch(owners);
+            if (owners.size() < batchSize) {
+                return;
+            }
+        }
+        log.warn("CART: Write-behind falling behind, {} carts still dirty", cartStateStore.dirtyCount());
+    }
+
+    /**
+     * Persists the owner's cart now and keeps it claimed until the surrounding transaction completes,
+     * waiting for a writer that is already flushing it. Used by checkout: it reads the cart back from MySQL,
+     * deletes it there and in Redis, and no background flush can write it back in between.
+     * Outside a transaction the claim is released right away.
+     */
+    public void flushAndHold(String owner) {
+        long deadline = System.currentTimeMillis() + syncFlushTimeout.toMillis();
+        while (true) {
+            CartStateStore.Claim claim = cartStateStore.hold(owner);
+            if (claim != CartStateStore.Claim.BUSY) {
+                if (claim == CartStateStore.Claim.CLAIMED) {
+                    try {
+                        persist(List.of(owner));
+                    } catch (RuntimeException e) {
+                        // A failed flush must not leave the cart looking clean, hand it back to the writer
+                        cartStateStore.markDirty(owner);
+                        cartStateStore.release(List.of(owner));
+                        throw e;
+                    }
+                }
+                releaseAfterCompletion(owner);
+                return;
+            }
+            pause(owner, deadline);
+        }
+    }
+
+    private void releaseAfterCompletion(String owner) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cartStateStore.release(List.of(owner));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                cartStateStore.release(List.of(owner));
+            }
+        });
+    }
+
+    /**
+     * Waits until no writer is flushing the owner's cart. Used after the Redis state is deleted,
+     * so a flush that read the state just before cannot write the cart back afterwards.
+     */
+    public void awaitIdle(String owner) {
+        long deadline = System.currentTimeMillis() + syncFlushTimeout.toMillis();
+        while (cartStateStore.isClaimed(owner)) {
+            pause(owner, deadline);
+        }
+    }
+
+    private void pause(String owner, long deadline) {
+        if (System.currentTimeMillis() > deadline) {
+            throw new RuntimeException("Cart for " + owner + " is still being persisted");
+        }
+        try {
+            Thread.sleep(20);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for cart flush", e);
+        }
+    }
+
+    private void persistBatch(List<String> owners) {
+        try {
+            persist(owners);
+            cartStateStore.release(owners);
+            log.debug("CART: Write-behind flushed {} carts", owners.size());
+        } catch (Exception e) {
+            log.warn("CART: Write-behind batch of {} failed, retrying carts one by one: {}", owners.size(), e.getMessage());
+            // Whatever still fails stays claimed and is retried once the claim times out
+            for (String owner : owners) {
+                try {
+                    persist(List.of(owner));
+                    cartStateStore.release(List.of(owner));
+                } catch (Exception ex) {
+                    log.error("CART: Write-behind flush failed for owner: {}", owner, ex);
+                }
+            }
+        }
+    }
+
+    private void persist(List<String> owners) {
+        Map<String, CartState> states = cartStateStore.getAll(owners);
+        Set<String> deleted = cartStateStore.deletedOf(owners);
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<String, CartModel> carts = cartRepository.findByOwnerIn(owners).stream()
+                    .collect(Collectors.toMap(CartModel::getOwner, Function.identity(), (a, b) -> a));
+            List<CartModel> changed = new ArrayList<>();
+            for (String owner : owners) {
+                CartState state = states.get(owner);
+                CartModel cart = carts.get(owner);
+                if (state == null) {
+                    if (deleted.contains(owner)) {
+                        // Removed on purpose since it was marked dirty, checkout or an admin delete
+                        if (cart != null) {
+                            cartRepository.delete(cart);
+                        }
+                    } else {
+                        // Expired or evicted from Redis: MySQL has the last flushed copy, keep it
+                        log.warn("CART: Write-behind state for owner {} is gone without a delete, keeping the stored cart", owner);
+                    }
+                    continue;
+                }
+                changed.add(apply(state, cart != null ? cart : new CartModel()));
+            }
+            cartRepository.saveAll(changed);
+        });
+    }
+
+    private CartModel apply(CartState state, CartModel cart) {
+        cart.setCode(state.getCode());
+        cart.setOwner(state.getOwner());
+        cart.setTotalPrice(state.getTotalPrice());
+        cart.setAddress(state.getAddress());
+        cart.setPaymentMethod(state.getPaymentMethod());
+        if (cart.getEntries() == null) {
+            cart.setEntries(new ArrayList<>());
+        }
+        Set<String> codes = state.getEntries().stream().map(CartEntryState::getCode).collect(Collectors.toSet());
+        cart.getEntries().removeIf(entry -> !codes.contains(entry.getCode()));
+        Map<String, CartEntryModel> entries = cart.getEntries().stream()
+                .collect(Collectors.toMap(CartEntryModel::getCode, Function.identity()));
+        for (CartEntryState entryState : state.getEntries()) {
+            CartEntryModel entry = entries.get(entryState.getCode());
+            if (entry == null) {
+                entry = new CartEntryModel();
+                entry.setCode(entryState.getCode());
+                entry.setCart(cart);
+                cart.getEntries().add(entry);
+            }
+            entry.setProduct(entryState.getProduct());
+            entry.setOwner(entryState.getOwner());
+            entry.setQuantity(entryState.getQuantity());
+            entry.setBasePrice(entryState.getBasePrice());
+            entry.setTotalPrice(entryState.getTotalPrice());
+        }
+        return cart;
+    }
+}
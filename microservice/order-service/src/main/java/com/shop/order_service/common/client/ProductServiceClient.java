@@ -4,9 +4,18 @@ import com.shop.order_service.common.dto.response.ProductDtoResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.util.Collection;
+import java.util.List;
 
 @FeignClient(value = "product-service", path = "/api/products")
 public interface ProductServiceClient {
     @GetMapping(value = "/{code}")
     ProductDtoResponse getProduct(@PathVariable("code") String code);
+
+    // Unknown codes are left out of the result, order follows the request
+    @PostMapping(value = "/batch")
+    List<ProductDtoResponse> getProducts(@RequestBody Collection<String> codes);
 }
@@ -0,0 +1,15 @@
+package com.shop.order_service.common.client;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.util.Map;
+
+@FeignClient(value = "search-service", path = "/api/search/products")
+public interface SearchServiceClient {
+
+    // Full snapshot: products left out are treated as having no recent sales
+    @PostMapping(value = "/popularity")
+    String updatePopularity(@RequestBody Map<Long, Long> unitsSold);
+}
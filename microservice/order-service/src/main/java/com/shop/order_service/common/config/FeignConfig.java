@@ -14,6 +14,10 @@ public class FeignConfig {
         return requestTemplate -> {
             // get email from RequestContextHolder
             RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            // Scheduled jobs call other services outside of any request
+            if (attributes == null) {
+                return;
+            }
             String userEmail = (String) attributes.getAttribute("user", 0);
             requestTemplate.header("x-email", userEmail);
         };
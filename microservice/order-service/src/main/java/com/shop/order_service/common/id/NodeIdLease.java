@@ -0,0 +1,125 @@
+package com.shop.order_service.common.id;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Leases this instance's node id for {@link OrderIdGenerator} from Redis.
+ * Each id is a key set with NX and a TTL and renewed well before it expires. An instance that stops
+ * renewing loses its id only after the TTL, so no two live instances ever generate with the same one.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NodeIdLease {
+
+    private static final RedisScript<Long> RENEW = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            end
+            return 0
+            """, Long.class);
+
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final String holder = UUID.randomUUID().toString();
+
+    @Value("${spring.application.name}")
+    private String serviceName;
+
+    @Value("${order.id.lease-ttl:PT30S}")
+    private Duration leaseTtl;
+
+    // Id and expiry published together, a reader never pairs a new expiry with an old id or the reverse
+    private volatile Lease lease = new Lease(-1, 0);
+
+    @PostConstruct
+    void acquire() {
+        long maxNodeId = OrderIdGenerator.MAX_NODE_ID;
+        long start = ThreadLocalRandom.current().nextLong(maxNodeId + 1);
+        for (long i = 0; i <= maxNodeId; i++) {
+            long candidate = (start + i) % (maxNodeId + 1);
+            long requestedAt = System.currentTimeMillis();
+            if (Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(key(candidate), holder, leaseTtl))) {
+                lease = new Lease(candidate, requestedAt + leaseTtl.toMillis());
+                log.info("ID: Leased node id {}", candidate);
+                return;
+            }
+        }
+        throw new IllegalStateException("No free node id, all " + (maxNodeId + 1) + " are leased");
+    }
+
+    @Scheduled(fixedDelayString = "${order.id.lease-renew-interval-ms:10000}")
+    void renew() {
+        long current = lease.getNodeId();
+        long requestedAt = System.currentTimeMillis();
+        Long renewed;
+        try {
+            renewed = stringRedisTemplate.execute(RENEW, List.of(key(current)), holder, String.valueOf(leaseTtl.toMillis()));
+        } catch (Exception e) {
+            // Keep generating until the lease would have run out, Redis may be back before then
+            log.warn("ID: Node id {} renewal failed: {}", current, e.getMessage());
+            return;
+        }
+        if (renewed != null && renewed == 1) {
+            lease = new Lease(current, requestedAt + leaseTtl.toMillis());
+            return;
+        }
+        log.warn("ID: Node id {} lease was lost, leasing a new one", current);
+        // Stop generating with the lost id at once; if no new id can be leased it stays stopped until a later renewal
+        lease = new Lease(current, 0);
+        acquire();
+    }
+
+    @PreDestroy
+    void release() {
+        long current = lease.getNodeId();
+        try {
+            stringRedisTemplate.execute(RELEASE, List.of(key(current)), holder);
+        } catch (Exception e) {
+            log.warn("ID: Node id {} release failed, it frees up when the lease expires: {}", current, e.getMessage());
+        }
+    }
+
+    /**
+     * The leased node id, or an exception once the lease can no longer be trusted.
+     */
+    public long nodeId() {
+        Lease current = lease;
+        if (System.currentTimeMillis() >= current.getValidUntil()) {
+            throw new IllegalStateException("Node id lease expired, cannot generate ids");
+        }
+        return current.getNodeId();
+    }
+
+    private String key(long id) {
+        return serviceName + ":node-id:" + id;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static final class Lease {
+        private final long nodeId;
+        private final long validUntil;
+    }
+}
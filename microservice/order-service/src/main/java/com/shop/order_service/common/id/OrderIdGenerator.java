@@ -0,0 +1,76 @@
+package com.shop.order_service.common.id;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered 64-bit ids: 41 bits of milliseconds since 2025-01-01, 10 bits of node id, 12 bits of sequence.
+ * Lock-free: the last (timestamp, sequence) pair sits in one AtomicLong and is advanced with CAS.
+ * A clock that steps back keeps counting from the last timestamp, and an exhausted sequence borrows
+ * the next millisecond, so ids from one node never repeat or go backwards.
+ */
+@Component
+public class OrderIdGenerator {
+
+    static final long EPOCH = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final NodeIdLease nodeIdLease;
+    private final Counter borrowed;
+    private final LongSupplier clock;
+    // (timestamp << SEQUENCE_BITS) | sequence of the last id handed out
+    private final AtomicLong last = new AtomicLong();
+
+    @Autowired
+    public OrderIdGenerator(NodeIdLease nodeIdLease, MeterRegistry meterRegistry) {
+        this(nodeIdLease, meterRegistry, System::currentTimeMillis);
+    }
+
+    // Tests drive the clock to step it back or hold it still
+    OrderIdGenerator(NodeIdLease nodeIdLease, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.nodeIdLease = nodeIdLease;
+        this.clock = clock;
+        this.borrowed = Counter.builder("order.id.sequence.exhausted")
+                .description("Ids issued ahead of the clock because a millisecond ran out of sequence numbers")
+                .register(meterRegistry);
+    }
+
+    public long nextId() {
+        long node = nodeIdLease.nodeId();
+        while (true) {
+            long previous = last.get();
+            long previousTimestamp = previous >>> SEQUENCE_BITS;
+            long now = clock.getAsLong() - EPOCH;
+            long next;
+            boolean exhausted = false;
+            if (now > previousTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else if ((previous & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = previous + 1;
+            } else {
+                next = (previousTimestamp + 1) << SEQUENCE_BITS;
+                exhausted = true;
+            }
+            if (last.compareAndSet(previous, next)) {
+                if (exhausted) {
+                    borrowed.increment();
+                }
+                long timestamp = next >>> SEQUENCE_BITS;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    public String nextCode() {
+        return Long.toString(nextId());
+    }
+}
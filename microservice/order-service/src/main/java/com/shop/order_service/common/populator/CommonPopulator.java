@@ -8,17 +8,26 @@ import com.shop.order_service.common.dto.response.ProductDtoResponse;
 import org.mapstruct.Mapper;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.stream.Stream;
+
 @Mapper(componentModel = "spring")
 public abstract class CommonPopulator {
     @Autowired
     private ProductServiceClient productServiceClient;
     @Autowired
     private CustomerServiceClient customerServiceClient;
+    @Autowired
+    private ProductResolver productResolver;
 
     protected CustomerDtoResponse findCustomer(String owner) {return customerServiceClient.getCustomer();}
     protected AddressDtoResponse findAddress(Long address) {return address!= null ? customerServiceClient.getAddress(address) : null;}
     protected ProductDtoResponse findProduct(String product){
-        return productServiceClient.getProduct(product);
+        return productResolver.resolve(product);
+    }
+
+    // Called from @BeforeMapping hooks so the per-entry findProduct calls hit the request memo
+    protected void prefetchProducts(Stream<String> products) {
+        productResolver.prefetch(products.toList());
     }
 
     protected String map(ProductDtoResponse productDto) {return productDto != null ? productDto.getCode() : null;}
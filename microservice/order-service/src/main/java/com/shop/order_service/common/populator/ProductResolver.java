@@ -0,0 +1,129 @@
+package com.shop.order_service.common.populator;
+
+import com.shop.order_service.common.client.ProductServiceClient;
+import com.shop.order_service.common.dto.response.ProductDtoResponse;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Product lookups for the populators, memoized for the current request.
+ * Populators prefetch every product code of the graph they are about to map in one batch call,
+ * so the per-entry lookups that follow are served from memory.
+ * Outside a web request every lookup goes to product-service as before.
+ */
+@Component
+@Slf4j
+public class ProductResolver {
+
+    private static final String ATTRIBUTE = ProductResolver.class.getName();
+    // product-service rejects larger batches
+    private static final int MAX_BATCH_SIZE = 500;
+
+    private final ProductServiceClient productServiceClient;
+    private final DistributionSummary lookupsPerRequest;
+    private final DistributionSummary callsPerRequest;
+    private final DistributionSummary callsSavedPerRequest;
+
+    public ProductResolver(ProductServiceClient productServiceClient, MeterRegistry meterRegistry) {
+        this.productServiceClient = productServiceClient;
+        this.lookupsPerRequest = DistributionSummary.builder("order.populator.product.lookups")
+                .description("Product lookups made by populators per request")
+                .register(meterRegistry);
+        this.callsPerRequest = DistributionSummary.builder("order.populator.product.calls")
+                .description("Calls to product-service made for those lookups per request")
+                .register(meterRegistry);
+        this.callsSavedPerRequest = DistributionSummary.builder("order.populator.product.calls.saved")
+                .description("Lookups per request that did not need their own call to product-service")
+                .register(meterRegistry);
+    }
+
+    public void prefetch(Collection<String> codes) {
+        Memo memo = memo();
+        if (memo == null) {
+            return;
+        }
+        Set<String> missing = new LinkedHashSet<>();
+        for (String code : codes) {
+            if (code != null && !memo.products.containsKey(code)) {
+                missing.add(code);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        List<String> pending = List.copyOf(missing);
+        for (int from = 0; from < pending.size(); from += MAX_BATCH_SIZE) {
+            List<String> chunk = pending.subList(from, Math.min(from + MAX_BATCH_SIZE, pending.size()));
+            memo.calls++;
+            try {
+                productServiceClient.getProducts(chunk).forEach(product -> memo.products.put(product.getCode(), product));
+            } catch (Exception e) {
+                // Leave them out, resolve() falls back to single lookups
+                log.warn("Product batch lookup failed for {} codes: {}", chunk.size(), e.getMessage());
+                continue;
+            }
+            chunk.forEach(code -> memo.products.putIfAbsent(code, null));
+        }
+        log.debug("Prefetched {} products in {} calls", missing.size(), memo.calls);
+    }
+
+    public ProductDtoResponse resolve(String code) {
+        Memo memo = memo();
+        if (memo == null) {
+            return productServiceClient.getProduct(code);
+        }
+        memo.lookups++;
+        if (memo.products.containsKey(code)) {
+            ProductDtoResponse product = memo.products.get(code);
+            if (product != null) {
+                return product;
+            }
+            // Not in the batch result, let the single lookup decide (it raises the same error as before)
+        }
+        memo.calls++;
+        ProductDtoResponse product = productServiceClient.getProduct(code);
+        memo.products.put(code, product);
+        return product;
+    }
+
+    private Memo memo() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Object memo = attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (memo instanceof Memo existing) {
+            return existing;
+        }
+        Memo created = new Memo();
+        attributes.setAttribute(ATTRIBUTE, created, RequestAttributes.SCOPE_REQUEST);
+        attributes.registerDestructionCallback(ATTRIBUTE, () -> record(created), RequestAttributes.SCOPE_REQUEST);
+        return created;
+    }
+
+    private void record(Memo memo) {
+        if (memo.lookups == 0 && memo.calls == 0) {
+            return;
+        }
+        lookupsPerRequest.record(memo.lookups);
+        callsPerRequest.record(memo.calls);
+        callsSavedPerRequest.record(Math.max(0, memo.lookups - memo.calls));
+    }
+
+    private static class Memo {
+        private final Map<String, ProductDtoResponse> products = new HashMap<>();
+        private int lookups;
+        private int calls;
+    }
+}
@@ -2,6 +2,8 @@ package com.shop.order_service.order.controller;
 
 import com.shop.order_service.common.utils.UserUtil;
 import com.shop.order_service.order.dto.response.OrderDtoResponse;
+import com.shop.order_service.order.dto.response.OrderHistoryResponse;
+import com.shop.order_service.order.sales.ProductSalesCounter;
 import com.shop.order_service.order.service.OrderService;
 import com.shop.order_service.order.type.OrderStatus;
 import lombok.RequiredArgsConstructor;
@@ -10,6 +12,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController()
 @RequestMapping(value = "api/orders")
@@ -17,6 +20,7 @@ import java.util.List;
 @Slf4j
 public class OrderController {
     private final OrderService orderService;
+    private final ProductSalesCounter productSalesCounter;
 
     @GetMapping("/{code}")
     public ResponseEntity<OrderDtoResponse> getOrderByCode(@PathVariable String code) {
@@ -32,6 +36,22 @@ public class OrderController {
         return ResponseEntity.ok(orders);
     }
 
+    @GetMapping("/customer/history")
+    public ResponseEntity<OrderHistoryResponse> getOrderHistory(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        log.info("API call: getOrderHistory, email={}, limit={}, hasCursor={}", UserUtil.current(), limit, cursor != null);
+        OrderHistoryResponse history = orderService.getOrderHistory(UserUtil.current(), cursor, limit);
+        return ResponseEntity.ok(history);
+    }
+
+    @GetMapping("/customer/{code}")
+    public ResponseEntity<OrderDtoResponse> getCustomerOrder(@PathVariable String code) {
+        log.info("API call: getCustomerOrder, email={}, code={}", UserUtil.current(), code);
+        OrderDtoResponse order = orderService.getCustomerOrder(UserUtil.current(), code);
+        return ResponseEntity.ok(order);
+    }
+
     @GetMapping
     public ResponseEntity<List<OrderDtoResponse>> getAllOrders() {
         log.info("API call: getAllOrders");
@@ -39,6 +59,13 @@ public class OrderController {
         return ResponseEntity.ok(orders);
     }
 
+    // Pulled by search-service replicas on startup and between pushes
+    @GetMapping("/sales/popularity")
+    public ResponseEntity<Map<Long, Long>> getSalesSnapshot() {
+        log.info("API call: getSalesSnapshot");
+        return ResponseEntity.ok(productSalesCounter.snapshot());
+    }
+
     @PutMapping("/{code}/status")
     public ResponseEntity<OrderDtoResponse> updateOrderStatus(
             @PathVariable String code,
@@ -0,0 +1,50 @@
+package com.shop.order_service.order.cursor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Encodes order history positions, the (creation date, id) of the last order on a page,
+ * as opaque URL-safe tokens.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderHistoryCursorCodec {
+
+    private final ObjectMapper objectMapper;
+
+    public String encode(Position position) {
+        Map<String, Object> token = new LinkedHashMap<>();
+        token.put("at", position.getCreationDate().toString());
+        token.put("id", position.getId());
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(token));
+        } catch (Exception ex) {
+            throw new IllegalStateException("Could not encode order history cursor", ex);
+        }
+    }
+
+    public Position decode(String cursor) {
+        try {
+            Map<?, ?> token = objectMapper.readValue(Base64.getUrlDecoder().decode(cursor), Map.class);
+            return new Position(LocalDateTime.parse((String) token.get("at")),
+                    objectMapper.convertValue(token.get("id"), Long.class));
+        } catch (Exception ex) {
+            throw new IllegalArgumentException("Invalid order history cursor", ex);
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Position {
+        private final LocalDateTime creationDate;
+        private final Long id;
+    }
+}
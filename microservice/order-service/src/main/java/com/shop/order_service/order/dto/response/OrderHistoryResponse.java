@@ -0,0 +1,14 @@
+package com.shop.order_service.order.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class OrderHistoryResponse {
+    private List<OrderSummaryResponse> orders;
+    private String nextCursor;
+    private boolean hasNext;
+}
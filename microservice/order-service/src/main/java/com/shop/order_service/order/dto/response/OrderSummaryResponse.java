@@ -0,0 +1,15 @@
+package com.shop.order_service.order.dto.response;
+
+import com.shop.order_service.order.type.OrderStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class OrderSummaryResponse {
+    private String code;
+    private LocalDateTime creationDate;
+    private OrderStatus status;
+    private double totalPrice;
+    private int itemCount;
+}
@@ -0,0 +1,17 @@
+package com.shop.order_service.order.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Published when an order has been placed, with the ordered quantity per product code.
+ * Listeners are expected to run after the surrounding transaction commits.
+ */
+@Getter
+@RequiredArgsConstructor
+public class OrderPlacedEvent {
+    private final String orderCode;
+    private final Map<String, Integer> quantities;
+}
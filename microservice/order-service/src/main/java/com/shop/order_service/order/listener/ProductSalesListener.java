@@ -0,0 +1,29 @@
+package com.shop.order_service.order.listener;
+
+import com.shop.order_service.order.event.OrderPlacedEvent;
+import com.shop.order_service.order.sales.ProductSalesCounter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Counts units sold once the order has committed, a rolled back order never counts.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSalesListener {
+
+    private final ProductSalesCounter productSalesCounter;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        try {
+            productSalesCounter.record(event.getQuantities());
+        } catch (Exception e) {
+            // Popularity is best effort, the order itself is already placed
+            log.warn("Could not record product sales for order {}: {}", event.getOrderCode(), e.getMessage());
+        }
+    }
+}
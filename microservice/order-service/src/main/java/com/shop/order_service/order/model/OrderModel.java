@@ -13,7 +13,9 @@ import org.hibernate.annotations.OnDeleteAction;
 import java.util.List;
 
 @Entity
-@Table(name = "p_orders")
+@Table(name = "p_orders", indexes = {
+        @Index(name = "idx_orders_owner_creation_id", columnList = "owner, creationDate, id")
+})
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class OrderModel extends AbstractOrderModel {
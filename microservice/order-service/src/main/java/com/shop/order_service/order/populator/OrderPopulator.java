@@ -8,11 +8,14 @@ import com.shop.order_service.order.dto.OrderData;
 import com.shop.order_service.order.dto.OrderEntryData;
 import com.shop.order_service.order.dto.response.OrderDtoResponse;
 import com.shop.order_service.order.dto.response.OrderEntryDtoResponse;
+import com.shop.order_service.order.dto.response.OrderSummaryResponse;
 import com.shop.order_service.order.model.OrderEntryModel;
 import com.shop.order_service.order.model.OrderModel;
 import com.shop.order_service.order.repository.OrderRepository;
+import com.shop.order_service.order.repository.projection.OrderSummaryView;
 import com.shop.order_service.payment.model.PaymentTransactionModel;
 import com.shop.order_service.payment.populator.PaymentTransactionPopulator;
+import org.mapstruct.BeforeMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,6 +36,7 @@ public abstract class OrderPopulator extends CommonPopulator {
 
     public abstract List<OrderModel> toModelList(List<OrderData> orders);
     public abstract List<OrderDtoResponse> toResponseDtoList(List<OrderModel> orders);
+    public abstract OrderSummaryResponse toSummaryResponse(OrderSummaryView view);
 
     @Mapping(target = "product", expression = "java(findProduct(entry.getProduct()))")
     public abstract OrderEntryDtoResponse toEntryResponseDto(OrderEntryModel entry);
@@ -52,4 +56,23 @@ public abstract class OrderPopulator extends CommonPopulator {
 
     public abstract List<OrderEntryModel> cartEntriesToOrderEntries(List<CartEntryModel> cartEntries);
 
+    @BeforeMapping
+    protected void prefetchProducts(OrderModel orderModel) {
+        if (orderModel != null && orderModel.getEntries() != null) {
+            prefetchProducts(orderModel.getEntries().stream().map(OrderEntryModel::getProduct));
+        }
+    }
+
+    // One batch for the whole list, the per-order hook then finds everything memoized
+    @BeforeMapping
+    protected void prefetchProducts(List<OrderModel> orders) {
+        if (orders == null) {
+            return;
+        }
+        prefetchProducts(orders.stream()
+                .filter(order -> order.getEntries() != null)
+                .flatMap(order -> order.getEntries().stream())
+                .map(OrderEntryModel::getProduct));
+    }
+
 }
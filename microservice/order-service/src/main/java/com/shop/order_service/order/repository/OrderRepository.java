@@ -1,14 +1,34 @@
 package com.shop.order_service.order.repository;
 
 import com.shop.order_service.order.model.OrderModel;
+import com.shop.order_service.order.repository.projection.OrderSummaryView;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<OrderModel,Long> {
     Optional<OrderModel> findByCode(String code);
+    Optional<OrderModel> findByCodeAndOwner(String code, String owner);
     List<OrderModel> findByOwner(String owner);
+
+    // Order history: newest first, keyset on (creationDate, id) served by idx_orders_owner_creation_id
+    @Query("SELECT o.id AS id, o.code AS code, o.creationDate AS creationDate, o.status AS status, " +
+            "o.totalPrice AS totalPrice, SIZE(o.entries) AS itemCount FROM OrderModel o " +
+            "WHERE o.owner = :owner ORDER BY o.creationDate DESC, o.id DESC")
+    List<OrderSummaryView> findHistory(@Param("owner") String owner, Limit limit);
+
+    @Query("SELECT o.id AS id, o.code AS code, o.creationDate AS creationDate, o.status AS status, " +
+            "o.totalPrice AS totalPrice, SIZE(o.entries) AS itemCount FROM OrderModel o " +
+            "WHERE o.owner = :owner " +
+            "AND (o.creationDate < :creationDate OR (o.creationDate = :creationDate AND o.id < :id)) " +
+            "ORDER BY o.creationDate DESC, o.id DESC")
+    List<OrderSummaryView> findHistoryBefore(@Param("owner") String owner, @Param("creationDate") LocalDateTime creationDate,
+                                             @Param("id") Long id, Limit limit);
 }
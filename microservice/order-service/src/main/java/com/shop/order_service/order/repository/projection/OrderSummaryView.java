@@ -0,0 +1,17 @@
+package com.shop.order_service.order.repository.projection;
+
+import com.shop.order_service.order.type.OrderStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Order history row: scalar columns plus the entry count, no entries, payments or remote lookups.
+ */
+public interface OrderSummaryView {
+    Long getId();
+    String getCode();
+    LocalDateTime getCreationDate();
+    OrderStatus getStatus();
+    double getTotalPrice();
+    Integer getItemCount();
+}
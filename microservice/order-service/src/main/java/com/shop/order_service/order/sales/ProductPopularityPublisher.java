@@ -0,0 +1,35 @@
+package com.shop.order_service.order.sales;
+
+import com.shop.order_service.common.client.SearchServiceClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Periodically pushes the rolling sales snapshot to search-service, which turns it into the popularity ranking signal.
+ * Pushed every time, even unchanged: the push reaches one replica, which may have restarted since the last one.
+ * Replicas also pull the snapshot themselves, see GET /api/orders/sales/popularity.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductPopularityPublisher {
+
+    private final ProductSalesCounter productSalesCounter;
+    private final SearchServiceClient searchServiceClient;
+
+    @Scheduled(fixedDelayString = "${order.sales.publish-interval-ms:300000}",
+            initialDelayString = "${order.sales.publish-interval-ms:300000}")
+    public void publish() {
+        try {
+            Map<Long, Long> snapshot = productSalesCounter.snapshot();
+            String result = searchServiceClient.updatePopularity(snapshot);
+            log.info("Published sales snapshot for {} products: {}", snapshot.size(), result);
+        } catch (Exception e) {
+            log.warn("Could not publish sales snapshot: {}", e.getMessage());
+        }
+    }
+}
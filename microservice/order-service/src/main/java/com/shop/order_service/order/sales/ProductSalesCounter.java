@@ -0,0 +1,89 @@
+package com.shop.order_service.order.sales;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rolling per-product sales counters in Redis: one hash per UTC day, product code to units sold.
+ * Recording an order is a single pipelined round-trip; day hashes expire once they leave the window.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSalesCounter {
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${spring.application.name}")
+    private String serviceName;
+
+    @Value("${order.sales.window-days:30}")
+    private int windowDays;
+
+    public void record(Map<String, Integer> quantities) {
+        String key = dayKey(today());
+        // One day past the window so a snapshot taken just after midnight still sees the oldest day
+        long ttlSeconds = Duration.ofDays(windowDays + 1L).toSeconds();
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            quantities.forEach((product, quantity) -> redis.hIncrBy(key, product, quantity));
+            redis.expire(key, ttlSeconds);
+            return null;
+        });
+    }
+
+    /**
+     * Units sold per product code over the window, today included.
+     * Product codes are numeric everywhere else; a counter under anything else is skipped, not sent.
+     */
+    public Map<Long, Long> snapshot() {
+        LocalDate today = today();
+        List<String> keys = today.minusDays(windowDays - 1L).datesUntil(today.plusDays(1))
+                .map(this::dayKey)
+                .toList();
+        List<Object> days = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            keys.forEach(redis::hGetAll);
+            return null;
+        });
+        Map<Long, Long> totals = new HashMap<>();
+        Set<String> skipped = new HashSet<>();
+        for (Object day : days) {
+            if (day instanceof Map<?, ?> counts) {
+                counts.forEach((product, units) -> {
+                    try {
+                        totals.merge(Long.parseLong(String.valueOf(product)), Long.parseLong(String.valueOf(units)), Long::sum);
+                    } catch (NumberFormatException e) {
+                        skipped.add(String.valueOf(product));
+                    }
+                });
+            }
+        }
+        if (!skipped.isEmpty()) {
+            log.warn("Skipped non-numeric product codes in sales counters: {}", skipped);
+        }
+        return totals;
+    }
+
+    private String dayKey(LocalDate day) {
+        return serviceName + ":product-sales:" + day;
+    }
+
+    private static LocalDate today() {
+        return LocalDate.now(ZoneOffset.UTC);
+    }
+}
@@ -2,6 +2,7 @@ package com.shop.order_service.order.service;
 
 import com.shop.order_service.cart.model.CartModel;
 import com.shop.order_service.order.dto.response.OrderDtoResponse;
+import com.shop.order_service.order.dto.response.OrderHistoryResponse;
 import com.shop.order_service.order.type.OrderStatus;
 
 import java.util.List;
@@ -14,6 +15,10 @@ public interface OrderService {
 
     List<OrderDtoResponse> getOrdersByCustomerEmail(String email);
 
+    OrderHistoryResponse getOrderHistory(String owner, String cursor, int limit);
+
+    OrderDtoResponse getCustomerOrder(String owner, String code);
+
     List<OrderDtoResponse> getAllOrders();
 
     OrderDtoResponse updateOrderStatus(String code, OrderStatus status);
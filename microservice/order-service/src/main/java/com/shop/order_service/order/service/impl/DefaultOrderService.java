@@ -2,13 +2,17 @@ package com.shop.order_service.order.service.impl;
 
 import com.shop.order_service.cart.model.CartModel;
 import com.shop.order_service.cart.service.CartService;
-import com.shop.order_service.common.utils.CodeGenerator;
+import com.shop.order_service.common.id.OrderIdGenerator;
 import com.shop.order_service.order.dto.OrderData;
+import com.shop.order_service.order.cursor.OrderHistoryCursorCodec;
 import com.shop.order_service.order.dto.response.OrderDtoResponse;
+import com.shop.order_service.order.dto.response.OrderHistoryResponse;
+import com.shop.order_service.order.event.OrderPlacedEvent;
 import com.shop.order_service.order.model.OrderEntryModel;
 import com.shop.order_service.order.model.OrderModel;
 import com.shop.order_service.order.populator.OrderPopulator;
 import com.shop.order_service.order.repository.OrderRepository;
+import com.shop.order_service.order.repository.projection.OrderSummaryView;
 import com.shop.order_service.order.service.OrderService;
 import com.shop.order_service.order.type.OrderStatus;
 import com.shop.order_service.payment.model.PaymentInfoModel;
@@ -18,11 +22,14 @@ import com.shop.order_service.payment.processor.factory.PaymentProcessorFactory;
 import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -35,6 +42,11 @@ public class DefaultOrderService implements OrderService {
     private final OrderPopulator orderPopulator;
     private final PaymentProcessorFactory paymentProcessorFactory;
     private final CartService cartService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OrderHistoryCursorCodec orderHistoryCursorCodec;
+    private final OrderIdGenerator orderIdGenerator;
+
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
 
     @Override
     @Transactional
@@ -58,6 +70,9 @@ public class DefaultOrderService implements OrderService {
 
             OrderModel savedOrder = orderRepository.save(order);
             log.info("Order saved successfully with ID {}", savedOrder.getId());
+            Map<String, Integer> quantities = savedOrder.getEntries().stream()
+                    .collect(Collectors.toMap(OrderEntryModel::getProduct, OrderEntryModel::getQuantity, Integer::sum));
+            eventPublisher.publishEvent(new OrderPlacedEvent(savedOrder.getCode(), quantities));
             cartService.removeCart();
             return orderPopulator.toResponseDto(savedOrder);
 
@@ -82,13 +97,51 @@ public class DefaultOrderService implements OrderService {
     @Override
     public List<OrderDtoResponse> getOrdersByCustomerEmail(String email) {
         log.info("Fetching orders for customer email: {}", email);
-        List<OrderModel> orders = orderRepository.findAll().stream()
-                .filter(order -> order.getOwner().equals(email))
-                .collect(Collectors.toList());
+        List<OrderModel> orders = orderRepository.findByOwner(email);
         log.info("Found {} orders for customer email: {}", orders.size(), email);
         return orderPopulator.toResponseDtoList(orders);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public OrderHistoryResponse getOrderHistory(String owner, String cursor, int limit) {
+        int size = Math.min(Math.max(limit, 1), MAX_HISTORY_PAGE_SIZE);
+        log.info("Fetching order history for customer email: {}, limit: {}, hasCursor: {}", owner, size, cursor != null);
+        // One extra row tells whether another page exists without a count query
+        Limit fetch = Limit.of(size + 1);
+        List<OrderSummaryView> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = orderRepository.findHistory(owner, fetch);
+        } else {
+            OrderHistoryCursorCodec.Position position = orderHistoryCursorCodec.decode(cursor);
+            rows = orderRepository.findHistoryBefore(owner, position.getCreationDate(), position.getId(), fetch);
+        }
+
+        boolean hasNext = rows.size() > size;
+        List<OrderSummaryView> page = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            OrderSummaryView last = page.get(page.size() - 1);
+            nextCursor = orderHistoryCursorCodec.encode(new OrderHistoryCursorCodec.Position(last.getCreationDate(), last.getId()));
+        }
+        return OrderHistoryResponse.builder()
+                .orders(page.stream().map(orderPopulator::toSummaryResponse).toList())
+                .nextCursor(nextCursor)
+                .hasNext(hasNext)
+                .build();
+    }
+
+    @Override
+    public OrderDtoResponse getCustomerOrder(String owner, String code) {
+        log.info("Fetching order {} for customer email: {}", code, owner);
+        OrderModel order = orderRepository.findByCodeAndOwner(code, owner)
+                .orElseThrow(() -> {
+                    log.error("Order not found with code: {} for customer email: {}", code, owner);
+                    return new IllegalArgumentException("Order not found with code: " + code);
+                });
+        return orderPopulator.toResponseDto(order);
+    }
+
     @Override
     public List<OrderDtoResponse> getAllOrders() {
         log.info("Fetching all orders");
@@ -112,6 +165,6 @@ public class DefaultOrderService implements OrderService {
     }
 
     private String generateOrderCode() {
-        return "ORD-" + CodeGenerator.generateCode();
+        return "ORD-" + orderIdGenerator.nextCode();
     }
 }
@@ -0,0 +1,59 @@
+package com.shop.order_service.common.id;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order code generation against the UUID.randomUUID() codes it replaced, single-threaded and under contention.
+ * Run with: mvn -B -pl order-service -Pjmh test-compile exec:exec
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderIdGeneratorBenchmark {
+
+    private OrderIdGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = new OrderIdGenerator(OrderIdGeneratorTest.leasedNodeId(), new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public String orderIdCode() {
+        return generator.nextCode();
+    }
+
+    @Benchmark
+    public String randomUuidCode() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String orderIdCodeContended() {
+        return generator.nextCode();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String randomUuidCodeContended() {
+        return UUID.randomUUID().toString();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(OrderIdGeneratorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
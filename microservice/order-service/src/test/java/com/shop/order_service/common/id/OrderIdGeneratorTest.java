@@ -0,0 +1,154 @@
+package com.shop.order_service.common.id;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrderIdGeneratorTest {
+
+    private static final long SEQUENCE_MASK = (1L << OrderIdGenerator.SEQUENCE_BITS) - 1;
+
+    private final AtomicLong now = new AtomicLong(OrderIdGenerator.EPOCH + 1_000);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private NodeIdLease nodeIdLease;
+
+    @BeforeEach
+    void setUp() {
+        nodeIdLease = leasedNodeId();
+    }
+
+    @Test
+    void packsTimestampNodeIdAndSequence() {
+        OrderIdGenerator generator = new OrderIdGenerator(nodeIdLease, meterRegistry, now::get);
+
+        long first = generator.nextId();
+        long second = generator.nextId();
+
+        assertThat(timestamp(first)).isEqualTo(1_000);
+        assertThat(nodeId(first)).isEqualTo(nodeIdLease.nodeId());
+        assertThat(sequence(first)).isZero();
+        assertThat(timestamp(second)).isEqualTo(1_000);
+        assertThat(sequence(second)).isEqualTo(1);
+        assertThat(generator.nextCode()).isEqualTo(Long.toString(first + 2));
+    }
+
+    @Test
+    void restartsTheSequenceWhenTheClockMoves() {
+        OrderIdGenerator generator = new OrderIdGenerator(nodeIdLease, meterRegistry, now::get);
+
+        generator.nextId();
+        generator.nextId();
+        now.addAndGet(5);
+        long id = generator.nextId();
+
+        assertThat(timestamp(id)).isEqualTo(1_005);
+        assertThat(sequence(id)).isZero();
+    }
+
+    @Test
+    void keepsCountingFromTheLastTimestampWhenTheClockStepsBack() {
+        OrderIdGenerator generator = new OrderIdGenerator(nodeIdLease, meterRegistry, now::get);
+
+        long before = generator.nextId();
+        now.addAndGet(-200);
+        long after = generator.nextId();
+
+        assertThat(after).isGreaterThan(before);
+        assertThat(timestamp(after)).isEqualTo(1_000);
+        assertThat(sequence(after)).isEqualTo(1);
+    }
+
+    @Test
+    void borrowsTheNextMillisecondWhenTheSequenceRunsOut() {
+        OrderIdGenerator generator = new OrderIdGenerator(nodeIdLease, meterRegistry, now::get);
+
+        long last = 0;
+        for (long i = 0; i <= SEQUENCE_MASK; i++) {
+            last = generator.nextId();
+        }
+        long borrowed = generator.nextId();
+
+        assertThat(timestamp(last)).isEqualTo(1_000);
+        assertThat(sequence(last)).isEqualTo(SEQUENCE_MASK);
+        assertThat(borrowed).isGreaterThan(last);
+        assertThat(timestamp(borrowed)).isEqualTo(1_001);
+        assertThat(sequence(borrowed)).isZero();
+        assertThat(meterRegistry.counter("order.id.sequence.exhausted").count()).isEqualTo(1);
+    }
+
+    @Test
+    void idsAreStrictlyIncreasingPerThreadAndUniqueAcrossThreads() throws Exception {
+        OrderIdGenerator generator = new OrderIdGenerator(nodeIdLease, meterRegistry);
+        int threads = 4;
+        int perThread = 50_000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    long previous = Long.MIN_VALUE;
+                    boolean increasing = true;
+                    for (int i = 0; i < perThread; i++) {
+                        long id = generator.nextId();
+                        increasing &= id > previous;
+                        previous = id;
+                        ids.add(id);
+                    }
+                    return increasing;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(ids).hasSize(threads * perThread);
+    }
+
+    // A lease taken against a Redis stub, only its nodeId() is used on the hot path
+    @SuppressWarnings("unchecked")
+    static NodeIdLease leasedNodeId() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(values);
+        when(values.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        NodeIdLease lease = new NodeIdLease(redis);
+        ReflectionTestUtils.setField(lease, "serviceName", "order-service");
+        ReflectionTestUtils.setField(lease, "leaseTtl", Duration.ofHours(1));
+        lease.acquire();
+        return lease;
+    }
+
+    private static long timestamp(long id) {
+        return id >>> (OrderIdGenerator.NODE_BITS + OrderIdGenerator.SEQUENCE_BITS);
+    }
+
+    private static long nodeId(long id) {
+        return (id >>> OrderIdGenerator.SEQUENCE_BITS) & OrderIdGenerator.MAX_NODE_ID;
+    }
+
+    private static long sequence(long id) {
+        return id & SEQUENCE_MASK;
+    }
+}
@@ -0,0 +1,34 @@
+package com.shop.product_service.cache.listener;
+
+import com.shop.product_service.cache.services.TieredCacheService;
+import com.shop.product_service.category.event.CategoryChangedEvent;
+import com.shop.product_service.product.event.ProductChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Evicts cached product and category responses once the change that made them stale has committed.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CacheInvalidationListener {
+
+    private final TieredCacheService tieredCacheService;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        tieredCacheService.evict(TieredCacheService.PRODUCTS, String.valueOf(event.getProductCode()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        // Category responses embed product codes and parent codes, product responses embed categories
+        tieredCacheService.evictAll(TieredCacheService.CATEGORIES);
+        if (event.getCategoryCode() != null) {
+            tieredCacheService.evictAll(TieredCacheService.PRODUCTS);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.shop.product_service.cache.listener;
+
+import com.shop.product_service.cache.services.impl.DefaultTieredCacheService;
+import com.shop.product_service.category.snapshot.CategorySnapshotHolder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+/**
+ * Drops L1 entries that another product-service instance invalidated,
+ * and applies its category snapshot changes to the local snapshot.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CacheInvalidationSubscriber implements MessageListener {
+
+    private final DefaultTieredCacheService tieredCacheService;
+    private final CategorySnapshotHolder categorySnapshotHolder;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split(Pattern.quote(DefaultTieredCacheService.MESSAGE_SEPARATOR), 3);
+        if (parts.length != 3) {
+            log.warn("CACHE: Ignoring malformed invalidation message: {}", body);
+            return;
+        }
+        if (tieredCacheService.getInstanceId().equals(parts[0])) {
+            return;
+        }
+        if (CategorySnapshotHolder.TOPIC.equals(parts[1])) {
+            categorySnapshotHolder.onRemoteChange(parts[2]);
+            return;
+        }
+        log.debug("CACHE: Remote invalidation - cache: {}, key: {}", parts[1], parts[2]);
+        tieredCacheService.evictLocal(parts[1], parts[2]);
+    }
+}
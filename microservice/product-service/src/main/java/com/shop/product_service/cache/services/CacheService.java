@@ -8,4 +8,11 @@ public interface CacheService {
     void saveCache(String prefix, String key,  Object value, long ttl_hours, TimeUnit timeUnit);
      Object getCacheValue(String prefix, String key);
     void removeCache(String prefix, String key);
+    void removeCacheByPrefix(String prefix);
+
+    // Counter bumped on every invalidation under a prefix, guards writes from loads that raced one
+    long bumpVersion(String prefix);
+    long getVersion(String prefix);
+    // Stores the value only while the prefix's version is still the given one, true if it was stored
+    boolean saveCacheIfVersion(String prefix, String key, Object value, long version, long ttl, TimeUnit timeUnit);
 }
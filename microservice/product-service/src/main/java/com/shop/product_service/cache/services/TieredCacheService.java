@@ -0,0 +1,20 @@
+package com.shop.product_service.cache.services;
+
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache with a bounded on-heap L1 in front of the shared Redis L2.
+ */
+public interface TieredCacheService {
+    String PRODUCTS = "products";
+    String CATEGORIES = "categories";
+
+    <T> T get(String cacheName, String key, Class<T> type, Supplier<T> loader);
+
+    // Evicts both tiers and tells the other instances to drop their L1 entry
+    void evict(String cacheName, String key);
+    void evictAll(String cacheName);
+
+    // Drops the L1 entry only, key null means the whole cache
+    void evictLocal(String cacheName, String key);
+}
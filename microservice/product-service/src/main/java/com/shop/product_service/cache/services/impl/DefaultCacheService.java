@@ -4,9 +4,18 @@ import com.shop.product_service.cache.services.CacheService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @Service
@@ -14,7 +23,16 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public class DefaultCacheService implements CacheService {
     private static final long DEFAULT_SESSION_TTL_HOURS = 24;
+    // KEYS[1] entry, KEYS[2] version; ARGV[1] expected version, ARGV[2] ttl millis, ARGV[3] serialized value
+    private static final byte[] SAVE_IF_VERSION = """
+            if (redis.call('GET', KEYS[2]) or '0') == ARGV[1] then
+                redis.call('SET', KEYS[1], ARGV[3], 'PX', ARGV[2])
+                return 1
+            end
+            return 0
+            """.getBytes(StandardCharsets.UTF_8);
     private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
     @Value("${spring.application.name}")
     private String serviceName;
 
@@ -54,6 +72,55 @@ public class DefaultCacheService implements CacheService {
         redisTemplate.delete(fullKey);
     }
 
+    @Override
+    public void removeCacheByPrefix(String prefix) {
+        String pattern = keyBuilder(prefix, "*");
+        List<String> keys = new ArrayList<>();
+        try (Cursor<String> cursor = redisTemplate.scan(ScanOptions.scanOptions().match(pattern).count(500).build())) {
+            cursor.forEachRemaining(keys::add);
+        }
+        if (!keys.isEmpty()) {
+            redisTemplate.delete(keys);
+        }
+        log.debug("CACHE: Removed {} keys matching: {}", keys.size(), pattern);
+    }
+
+    @Override
+    public long bumpVersion(String prefix) {
+        Long version = stringRedisTemplate.opsForValue().increment(versionKey(prefix));
+        return version == null ? 0 : version;
+    }
+
+    @Override
+    public long getVersion(String prefix) {
+        String version = stringRedisTemplate.opsForValue().get(versionKey(prefix));
+        return version == null ? 0 : Long.parseLong(version);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean saveCacheIfVersion(String prefix, String key, Object value, long version, long ttl, TimeUnit timeUnit) {
+        byte[][] keysAndArgs = {
+                bytes(keyBuilder(prefix, key)),
+                bytes(versionKey(prefix)),
+                bytes(String.valueOf(version)),
+                bytes(String.valueOf(timeUnit.toMillis(ttl))),
+                ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(value)
+        };
+        Boolean saved = redisTemplate.execute((RedisCallback<Boolean>) connection ->
+                connection.scriptingCommands().eval(SAVE_IF_VERSION, ReturnType.BOOLEAN, 2, keysAndArgs));
+        log.debug("CACHE: Conditional store for key: {}:{} at version {} - stored: {}", prefix, key, version, saved);
+        return Boolean.TRUE.equals(saved);
+    }
+
+    private String versionKey(String prefix) {
+        return serviceName + ":cache-version:" + prefix;
+    }
+
+    private byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
     private String keyBuilder(String prefix, String key) {
         return serviceName + ":" + prefix + ":" + key;
     }
@@ -0,0 +1,177 @@
+package com.shop.product_service.cache.services.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shop.product_service.cache.services.CacheService;
+import com.shop.product_service.cache.services.TieredCacheService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DefaultTieredCacheService implements TieredCacheService {
+
+    public static final String MESSAGE_SEPARATOR = "|";
+    public static final String ALL_KEYS = "*";
+
+    private final CacheService cacheService;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Cache<String, Object>> localCaches = new ConcurrentHashMap<>();
+    // Bumped by every local or remote eviction, tells a finished load whether it raced one
+    private final Map<String, AtomicLong> localVersions = new ConcurrentHashMap<>();
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @Value("${cache.l1.max-size:10000}")
+    private long localMaxSize;
+    @Value("${cache.l1.ttl:PT5M}")
+    private Duration localTtl;
+    @Value("${cache.l2.ttl:PT30M}")
+    private Duration remoteTtl;
+    @Value("${cache.invalidation.channel}")
+    private String invalidationChannel;
+
+    @Override
+    public <T> T get(String cacheName, String key, Class<T> type, Supplier<T> loader) {
+        long localVersion = localVersion(cacheName).get();
+        Object value = localCache(cacheName).get(key, k -> loadFromRemote(cacheName, k, type, loader));
+        if (localVersion(cacheName).get() != localVersion) {
+            // Evicted while loading, the value may predate the eviction: serve it this once, don't keep it
+            localCache(cacheName).invalidate(key);
+        }
+        return value == null ? null : type.cast(value);
+    }
+
+    @Override
+    public void evict(String cacheName, String key) {
+        evictLocal(cacheName, key);
+        try {
+            // Version first: a load that read the source before this change can no longer store its value
+            cacheService.bumpVersion(cacheName);
+            cacheService.removeCache(cacheName, key);
+        } catch (Exception ex) {
+            log.warn("CACHE: Failed to remove L2 entry {}:{} - {}", cacheName, key, ex.getMessage());
+        }
+        publish(cacheName, key);
+    }
+
+    @Override
+    public void evictAll(String cacheName) {
+        evictLocal(cacheName, null);
+        try {
+            cacheService.bumpVersion(cacheName);
+            cacheService.removeCacheByPrefix(cacheName);
+        } catch (Exception ex) {
+            log.warn("CACHE: Failed to clear L2 cache {} - {}", cacheName, ex.getMessage());
+        }
+        publish(cacheName, ALL_KEYS);
+    }
+
+    @Override
+    public void evictLocal(String cacheName, String key) {
+        localVersion(cacheName).incrementAndGet();
+        Cache<String, Object> cache = localCaches.get(cacheName);
+        if (cache == null) {
+            return;
+        }
+        if (key == null || ALL_KEYS.equals(key)) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(key);
+        }
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * Sends a message to the other instances on the invalidation channel, for local state that is not a cache entry.
+     */
+    public void broadcast(String topic, String payload) {
+        publish(topic, payload);
+    }
+
+    private <T> Object loadFromRemote(String cacheName, String key, Class<T> type, Supplier<T> loader) {
+        // Read before the source, unknown (-1) if Redis is down and then nothing is written back
+        long version = -1;
+        try {
+            version = cacheService.getVersion(cacheName);
+            Object remote = cacheService.getCacheValue(cacheName, key);
+            if (remote != null) {
+                remoteCounter(cacheName, "hit").increment();
+                return type.isInstance(remote) ? remote : objectMapper.convertValue(remote, type);
+            }
+            remoteCounter(cacheName, "miss").increment();
+        } catch (Exception ex) {
+            log.warn("CACHE: L2 read failed for {}:{}, falling back to source - {}", cacheName, key, ex.getMessage());
+        }
+
+        T loaded = loader.get();
+        if (loaded != null && version >= 0) {
+            try {
+                if (!cacheService.saveCacheIfVersion(cacheName, key, loaded, version, remoteTtl.toSeconds(), TimeUnit.SECONDS)) {
+                    Counter.builder("cache.l2.stale-loads")
+                            .description("Loads not written to Redis because the cache was invalidated meanwhile")
+                            .tag("cache", cacheName)
+                            .register(meterRegistry)
+                            .increment();
+                    log.debug("CACHE: {}:{} was invalidated while loading, not stored in L2", cacheName, key);
+                }
+            } catch (Exception ex) {
+                log.warn("CACHE: L2 write failed for {}:{} - {}", cacheName, key, ex.getMessage());
+            }
+        }
+        return loaded;
+    }
+
+    private Cache<String, Object> localCache(String cacheName) {
+        return localCaches.computeIfAbsent(cacheName, name -> {
+            Cache<String, Object> cache = Caffeine.newBuilder()
+                    .maximumSize(localMaxSize)
+                    .expireAfterWrite(localTtl)
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, name, "tier", "l1");
+            return cache;
+        });
+    }
+
+    private AtomicLong localVersion(String cacheName) {
+        return localVersions.computeIfAbsent(cacheName, name -> new AtomicLong());
+    }
+
+    private Counter remoteCounter(String cacheName, String result) {
+        return Counter.builder("cache.l2.gets")
+                .description("Redis lookups made on an L1 miss")
+                .tag("cache", cacheName)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private void publish(String cacheName, String key) {
+        try {
+            stringRedisTemplate.convertAndSend(invalidationChannel,
+                    String.join(MESSAGE_SEPARATOR, instanceId, cacheName, key));
+        } catch (Exception ex) {
+            log.warn("CACHE: Failed to publish invalidation for {}:{} - {}", cacheName, key, ex.getMessage());
+        }
+    }
+}
@@ -8,6 +8,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping(value = "/api/categories")
@@ -74,6 +76,22 @@ public class CategoryController {
         return response;
     }
 
+    @GetMapping("/parent-codes")
+    public Map<Long, Set<Long>> getParentCodes() {
+        log.info("Request received: GET /api/categories/parent-codes");
+        Map<Long, Set<Long>> response = categoryService.getParentCodes();
+        log.info("Request completed: GET /api/categories/parent-codes - Status: 200, count: {}", response.size());
+        return response;
+    }
+
+    @PostMapping("/closure/rebuild")
+    public int rebuildClosure() {
+        log.info("Request received: POST /api/categories/closure/rebuild");
+        int rows = categoryService.rebuildClosure();
+        log.info("Request completed: POST /api/categories/closure/rebuild - Status: 200, rows: {}", rows);
+        return rows;
+    }
+
     // ==================== Brand Endpoints ====================
     @GetMapping("/brands")
     public List<CategoryDtoResponse> getBrands() {
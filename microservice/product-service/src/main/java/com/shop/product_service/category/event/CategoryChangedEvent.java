@@ -0,0 +1,32 @@
+package com.shop.product_service.category.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * Published when a category or a product-category link changes.
+ * Listeners are expected to run after the surrounding transaction commits.
+ * A link change carries the product and the categories it is in now, so it can be applied without a reload.
+ */
+@Getter
+@AllArgsConstructor
+public class CategoryChangedEvent {
+    private final Long categoryCode;
+    private final String reason;
+    private final Long productCode;
+    private final Set<Long> productCategoryCodes;
+
+    public CategoryChangedEvent(Long categoryCode, String reason) {
+        this(categoryCode, reason, null, null);
+    }
+
+    public static CategoryChangedEvent productLinks(Long productCode, Set<Long> categoryCodes, String reason) {
+        return new CategoryChangedEvent(null, reason, productCode, Set.copyOf(categoryCodes));
+    }
+
+    public boolean isProductLinkChange() {
+        return productCode != null;
+    }
+}
@@ -0,0 +1,35 @@
+package com.shop.product_service.category.listener;
+
+import com.shop.product_service.category.event.CategoryChangedEvent;
+import com.shop.product_service.common.client.SearchServiceClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Search documents carry the ancestor closure of their categories, so a category change
+ * asks search-service to refresh the products that sit under it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CategorySearchSyncListener {
+
+    private final SearchServiceClient searchServiceClient;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (event.getCategoryCode() == null) {
+            return;
+        }
+        try {
+            String result = searchServiceClient.reindexCategory(event.getCategoryCode());
+            log.info("CATEGORY: Search refresh requested for category {} ({}) - {}",
+                    event.getCategoryCode(), event.getReason(), result);
+        } catch (Exception ex) {
+            // Search catches up on the next full reindex
+            log.warn("CATEGORY: Search refresh failed for category {}: {}", event.getCategoryCode(), ex.getMessage());
+        }
+    }
+}
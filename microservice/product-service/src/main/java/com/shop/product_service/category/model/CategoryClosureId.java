@@ -0,0 +1,15 @@
+package com.shop.product_service.category.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryClosureId implements Serializable {
+    private Long ancestorId;
+    private Long descendantId;
+}
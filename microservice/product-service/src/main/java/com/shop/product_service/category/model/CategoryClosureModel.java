@@ -0,0 +1,58 @@
+package com.shop.product_service.category.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Ancestor/descendant pair of the category DAG with the shortest path length between them.
+ * Every category also has a self row with depth 0.
+ */
+@Entity
+@Table(name = "category_closure",
+        indexes = @Index(name = "idx_category_closure_descendant", columnList = "descendant_id, ancestor_id"))
+@IdClass(CategoryClosureId.class)
+@Getter
+@Setter
+@NoArgsConstructor
+public class CategoryClosureModel implements Persistable<CategoryClosureId> {
+
+    @Id
+    @Column(name = "ancestor_id")
+    private Long ancestorId;
+
+    @Id
+    @Column(name = "descendant_id")
+    private Long descendantId;
+
+    @Column(nullable = false)
+    private int depth;
+
+    // Rows are only ever inserted or bulk deleted, so skip the merge lookup Spring Data does for assigned ids
+    @Transient
+    private boolean newEntity = true;
+
+    public CategoryClosureModel(Long ancestorId, Long descendantId, int depth) {
+        this.ancestorId = ancestorId;
+        this.descendantId = descendantId;
+        this.depth = depth;
+    }
+
+    @Override
+    public CategoryClosureId getId() {
+        return new CategoryClosureId(ancestorId, descendantId);
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newEntity = false;
+    }
+}
@@ -3,6 +3,8 @@ package com.shop.product_service.category.populator;
 import com.shop.product_service.category.dto.CategoryDto;
 import com.shop.product_service.category.dto.response.CategoryDtoResponse;
 import com.shop.product_service.category.model.CategoryModel;
+import com.shop.product_service.category.repository.projection.CategoryView;
+import com.shop.product_service.category.snapshot.CategorySnapshot;
 import com.shop.product_service.product.model.ProductModel;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -29,6 +31,15 @@ public interface CategoryPopulator {
 
     CategoryDtoResponse toDtoResponse(CategoryDto categoryDto);
 
+    @Mapping(target = "parentCategoryCodes", expression = "java(node.getParentCategoryCodes().isEmpty() ? null : new java.util.HashSet<>(node.getParentCategoryCodes()))")
+    @Mapping(target = "children", ignore = true)
+    CategoryDtoResponse toDtoResponse(CategorySnapshot.Node node);
+
+    @Mapping(target = "productCodes", ignore = true)
+    @Mapping(target = "parentCategoryCodes", ignore = true)
+    @Mapping(target = "children", ignore = true)
+    CategoryDtoResponse toDtoResponse(CategoryView view);
+
     default Set<Long> mapProductsToCodes(Set<ProductModel> products) {
         if (products == null) return null;
         return products.stream()
@@ -0,0 +1,39 @@
+package com.shop.product_service.category.repository;
+
+import com.shop.product_service.category.model.CategoryClosureId;
+import com.shop.product_service.category.model.CategoryClosureModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CategoryClosureRepository extends JpaRepository<CategoryClosureModel, CategoryClosureId> {
+
+    boolean existsByAncestorIdAndDescendantId(Long ancestorId, Long descendantId);
+
+    List<CategoryClosureModel> findByDescendantIdIn(Collection<Long> descendantIds);
+
+    @Query("SELECT c.descendantId FROM CategoryClosureModel c WHERE c.ancestorId = :ancestorId")
+    List<Long> findDescendantIds(@Param("ancestorId") Long ancestorId);
+
+    @Query("SELECT c.descendantId FROM CategoryClosureModel c WHERE c.ancestorId = :ancestorId AND c.depth = 1")
+    List<Long> findChildIds(@Param("ancestorId") Long ancestorId);
+
+    // Category itself first (depth 0), then descendants nearest first
+    @Query("SELECT d.code FROM CategoryClosureModel c, CategoryModel a, CategoryModel d " +
+            "WHERE a.code = :code AND c.ancestorId = a.id AND d.id = c.descendantId ORDER BY c.depth, d.id")
+    List<Long> findDescendantCodes(@Param("code") Long code);
+
+    // Rows that enter the given subtree from an ancestor outside of it
+    @Query("SELECT c FROM CategoryClosureModel c WHERE c.descendantId IN :ids AND c.ancestorId NOT IN :ids")
+    List<CategoryClosureModel> findExternalAncestors(@Param("ids") Collection<Long> subtreeIds);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM CategoryClosureModel c WHERE c.ancestorId = :id OR c.descendantId = :id")
+    int deleteByCategoryId(@Param("id") Long categoryId);
+}
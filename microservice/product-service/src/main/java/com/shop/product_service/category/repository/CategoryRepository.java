@@ -2,11 +2,17 @@ package com.shop.product_service.category.repository;
 
 import com.shop.product_service.category.model.CategoryModel;
 import com.shop.product_service.category.model.CategoryType;
+import com.shop.product_service.category.repository.projection.CategoryEdgeView;
+import com.shop.product_service.category.repository.projection.CategoryParentLinkView;
+import com.shop.product_service.category.repository.projection.CategoryParentView;
+import com.shop.product_service.category.repository.projection.CategoryProductView;
+import com.shop.product_service.category.repository.projection.CategoryView;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,4 +28,40 @@ public interface CategoryRepository extends JpaRepository<CategoryModel, Long> {
 
     @Query("SELECT c FROM CategoryModel c JOIN c.parentCategories p WHERE p = :parent")
     List<CategoryModel> findByParentCategoriesContaining(@Param("parent") CategoryModel parent);
+
+    // Snapshot methods - bulk rows for the in-memory category DAG
+    @Query("SELECT c.id AS id, c.code AS code, c.name AS name, c.description AS description, c.type AS type, " +
+            "p.code AS parentCode FROM CategoryModel c LEFT JOIN c.parentCategories p ORDER BY c.id")
+    List<CategoryEdgeView> findAllEdges();
+
+    @Query("SELECT c.code AS categoryCode, p.code AS productCode FROM ProductModel p JOIN p.categories c")
+    List<CategoryProductView> findAllProductLinks();
+
+    // Listing methods - scalar projections, product and parent codes come from the join tables
+    @Query("SELECT c.id AS id, c.code AS code, c.name AS name, c.description AS description, c.type AS type " +
+            "FROM CategoryModel c ORDER BY c.id")
+    List<CategoryView> findAllViews();
+
+    @Query("SELECT c.id AS id, c.code AS code, c.name AS name, c.description AS description, c.type AS type " +
+            "FROM CategoryModel c WHERE c.code = :code")
+    Optional<CategoryView> findViewByCode(@Param("code") Long code);
+
+    @Query("SELECT c.code AS categoryCode, p.code AS productCode FROM ProductModel p JOIN p.categories c WHERE c.code IN :codes")
+    List<CategoryProductView> findProductLinks(@Param("codes") Collection<Long> categoryCodes);
+
+    @Query("SELECT c.code AS categoryCode, p.code AS parentCode FROM CategoryModel c JOIN c.parentCategories p")
+    List<CategoryParentView> findAllParentCodes();
+
+    @Query("SELECT c.code AS categoryCode, p.code AS parentCode FROM CategoryModel c JOIN c.parentCategories p WHERE c.code IN :codes")
+    List<CategoryParentView> findParentCodes(@Param("codes") Collection<Long> categoryCodes);
+
+    // Closure methods - raw parent links by primary key
+    @Query("SELECT c.id AS categoryId, p.id AS parentId FROM CategoryModel c JOIN c.parentCategories p WHERE c.id IN :ids")
+    List<CategoryParentLinkView> findParentLinks(@Param("ids") Collection<Long> categoryIds);
+
+    @Query("SELECT c.id AS categoryId, p.id AS parentId FROM CategoryModel c JOIN c.parentCategories p")
+    List<CategoryParentLinkView> findAllParentLinks();
+
+    @Query("SELECT c.id FROM CategoryModel c")
+    List<Long> findAllIds();
 }
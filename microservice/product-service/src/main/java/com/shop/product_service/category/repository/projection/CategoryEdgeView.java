@@ -0,0 +1,15 @@
+package com.shop.product_service.category.repository.projection;
+
+import com.shop.product_service.category.model.CategoryType;
+
+/**
+ * One row per (category, parent) pair. Root categories come back once with a null parentCode.
+ */
+public interface CategoryEdgeView {
+    Long getId();
+    Long getCode();
+    String getName();
+    String getDescription();
+    CategoryType getType();
+    Long getParentCode();
+}
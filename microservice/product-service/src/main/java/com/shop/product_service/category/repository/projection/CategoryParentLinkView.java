@@ -0,0 +1,9 @@
+package com.shop.product_service.category.repository.projection;
+
+/**
+ * One row per category_parents link, by primary key.
+ */
+public interface CategoryParentLinkView {
+    Long getCategoryId();
+    Long getParentId();
+}
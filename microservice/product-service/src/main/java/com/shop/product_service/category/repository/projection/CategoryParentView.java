@@ -0,0 +1,9 @@
+package com.shop.product_service.category.repository.projection;
+
+/**
+ * One row per (category, parent) link from category_parents, by business code.
+ */
+public interface CategoryParentView {
+    Long getCategoryCode();
+    Long getParentCode();
+}
@@ -0,0 +1,9 @@
+package com.shop.product_service.category.repository.projection;
+
+/**
+ * One row per (category, product) link from product_categories.
+ */
+public interface CategoryProductView {
+    Long getCategoryCode();
+    Long getProductCode();
+}
@@ -0,0 +1,14 @@
+package com.shop.product_service.category.repository.projection;
+
+import com.shop.product_service.category.model.CategoryType;
+
+/**
+ * Scalar category columns only, so listing never initializes the product or parent associations.
+ */
+public interface CategoryView {
+    Long getId();
+    Long getCode();
+    String getName();
+    String getDescription();
+    CategoryType getType();
+}
@@ -0,0 +1,35 @@
+package com.shop.product_service.category.runner;
+
+import com.shop.product_service.category.repository.CategoryClosureRepository;
+import com.shop.product_service.category.repository.CategoryRepository;
+import com.shop.product_service.category.service.CategoryClosureService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Backfills the category closure table on first start against an existing catalog.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class CategoryClosureRunner implements ApplicationRunner {
+
+    private final CategoryClosureRepository closureRepository;
+    private final CategoryRepository categoryRepository;
+    private final CategoryClosureService categoryClosureService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            if (closureRepository.count() == 0 && categoryRepository.count() > 0) {
+                log.info("CATEGORY: Category closure is empty, backfilling from category_parents");
+                categoryClosureService.rebuild();
+            }
+        } catch (Exception ex) {
+            log.error("CATEGORY: Category closure backfill failed, run POST /api/categories/closure/rebuild", ex);
+        }
+    }
+}
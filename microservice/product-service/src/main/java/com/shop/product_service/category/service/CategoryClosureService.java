@@ -0,0 +1,23 @@
+package com.shop.product_service.category.service;
+
+import java.util.List;
+
+public interface CategoryClosureService {
+    // Adds the self row and ancestor rows for a newly saved category
+    void registerCategory(Long categoryId);
+
+    // Recomputes ancestor rows for a category and its whole subtree after its parents changed
+    void refreshAncestors(Long categoryId);
+
+    // Drops every row of a category that is about to be deleted and returns its direct children
+    List<Long> unregisterCategory(Long categoryId);
+
+    // True if descendantId is ancestorId itself or below it
+    boolean isDescendant(Long descendantId, Long ancestorId);
+
+    // Category code followed by all descendant codes, nearest first
+    List<Long> getDescendantCodes(Long categoryCode);
+
+    // Rebuilds the whole table from category_parents, returns the number of rows written
+    int rebuild();
+}
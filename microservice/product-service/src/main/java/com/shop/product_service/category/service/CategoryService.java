@@ -4,6 +4,8 @@ import com.shop.product_service.category.dto.CategoryDto;
 import com.shop.product_service.category.dto.response.CategoryDtoResponse;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public interface CategoryService {
     List<CategoryDtoResponse> getAllCategories();
@@ -18,6 +20,12 @@ public interface CategoryService {
     // Get all descendant category codes including the category itself (for search)
     List<Long> getAllDescendantCodes(Long categoryCode);
 
+    // Parent codes of every non-root category (for search-side ancestor closures)
+    Map<Long, Set<Long>> getParentCodes();
+
+    // Backfill the ancestor/descendant closure table from category_parents
+    int rebuildClosure();
+
     // Get brands (children of code=2)
     List<CategoryDtoResponse> getBrands();
 }
@@ -0,0 +1,171 @@
+package com.shop.product_service.category.service.impl;
+
+import com.shop.product_service.category.model.CategoryClosureId;
+import com.shop.product_service.category.model.CategoryClosureModel;
+import com.shop.product_service.category.repository.CategoryClosureRepository;
+import com.shop.product_service.category.repository.CategoryRepository;
+import com.shop.product_service.category.repository.projection.CategoryParentLinkView;
+import com.shop.product_service.category.service.CategoryClosureService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class CategoryClosureServiceImpl implements CategoryClosureService {
+
+    private final CategoryClosureRepository closureRepository;
+    private final CategoryRepository categoryRepository;
+
+    @Override
+    @Transactional
+    public void registerCategory(Long categoryId) {
+        closureRepository.save(new CategoryClosureModel(categoryId, categoryId, 0));
+        refreshAncestors(categoryId);
+    }
+
+    @Override
+    @Transactional
+    public void refreshAncestors(Long categoryId) {
+        // Rows inside the subtree cannot change when the root's parents change, only rows entering it from outside
+        Set<Long> subtree = new HashSet<>(closureRepository.findDescendantIds(categoryId));
+        subtree.add(categoryId);
+
+        Map<Long, List<Long>> parentsByChild = groupParents(categoryRepository.findParentLinks(subtree));
+        Set<Long> outsideParents = parentsByChild.values().stream()
+                .flatMap(List::stream)
+                .filter(parentId -> !subtree.contains(parentId))
+                .collect(Collectors.toSet());
+
+        Map<Long, Map<Long, Integer>> outsideAncestors = new HashMap<>();
+        if (!outsideParents.isEmpty()) {
+            closureRepository.findByDescendantIdIn(outsideParents).forEach(row ->
+                    outsideAncestors.computeIfAbsent(row.getDescendantId(), id -> new HashMap<>())
+                            .put(row.getAncestorId(), row.getDepth()));
+        }
+
+        Map<Long, Map<Long, Integer>> ancestors = computeAncestors(subtree, parentsByChild, outsideAncestors);
+
+        // Diff against the stored rows so unchanged paths are left alone
+        Map<CategoryClosureId, CategoryClosureModel> stale = closureRepository.findExternalAncestors(subtree).stream()
+                .collect(Collectors.toMap(CategoryClosureModel::getId, row -> row));
+        List<CategoryClosureModel> added = new ArrayList<>();
+        ancestors.forEach((descendantId, byAncestor) -> byAncestor.forEach((ancestorId, depth) -> {
+            if (subtree.contains(ancestorId)) {
+                return;
+            }
+            CategoryClosureModel existing = stale.remove(new CategoryClosureId(ancestorId, descendantId));
+            if (existing == null) {
+                added.add(new CategoryClosureModel(ancestorId, descendantId, depth));
+            } else if (existing.getDepth() != depth) {
+                existing.setDepth(depth);
+            }
+        }));
+        closureRepository.deleteAll(stale.values());
+        closureRepository.saveAll(added);
+        log.debug("CATEGORY: Closure refreshed for subtree of {} ({} nodes) - removed: {}, inserted: {}",
+                categoryId, subtree.size(), stale.size(), added.size());
+    }
+
+    @Override
+    @Transactional
+    public List<Long> unregisterCategory(Long categoryId) {
+        List<Long> childIds = closureRepository.findChildIds(categoryId);
+        closureRepository.deleteByCategoryId(categoryId);
+        return childIds;
+    }
+
+    @Override
+    public boolean isDescendant(Long descendantId, Long ancestorId) {
+        if (descendantId == null || ancestorId == null) {
+            return false;
+        }
+        return closureRepository.existsByAncestorIdAndDescendantId(ancestorId, descendantId);
+    }
+
+    @Override
+    public List<Long> getDescendantCodes(Long categoryCode) {
+        return closureRepository.findDescendantCodes(categoryCode);
+    }
+
+    @Override
+    @Transactional
+    public int rebuild() {
+        log.info("CATEGORY: Rebuilding category closure from category_parents");
+        List<Long> categoryIds = categoryRepository.findAllIds();
+        Map<Long, List<Long>> parentsByChild = groupParents(categoryRepository.findAllParentLinks());
+        Map<Long, Map<Long, Integer>> ancestors =
+                computeAncestors(new HashSet<>(categoryIds), parentsByChild, Collections.emptyMap());
+
+        closureRepository.deleteAllInBatch();
+        List<CategoryClosureModel> rows = new ArrayList<>();
+        ancestors.forEach((descendantId, byAncestor) -> byAncestor.forEach((ancestorId, depth) ->
+                rows.add(new CategoryClosureModel(ancestorId, descendantId, depth))));
+        closureRepository.saveAll(rows);
+        log.info("CATEGORY: Category closure rebuilt - categories: {}, rows: {}", categoryIds.size(), rows.size());
+        return rows.size();
+    }
+
+    private Map<Long, List<Long>> groupParents(List<CategoryParentLinkView> links) {
+        return links.stream().collect(Collectors.groupingBy(CategoryParentLinkView::getCategoryId,
+                Collectors.mapping(CategoryParentLinkView::getParentId, Collectors.toList())));
+    }
+
+    /**
+     * Walks the given nodes in topological order and returns, for each node, its ancestors (self included)
+     * with the shortest depth. Parents outside the node set contribute the ancestor rows passed in.
+     */
+    private Map<Long, Map<Long, Integer>> computeAncestors(Set<Long> nodes,
+                                                           Map<Long, List<Long>> parentsByChild,
+                                                           Map<Long, Map<Long, Integer>> outsideAncestors) {
+        Map<Long, Integer> pendingParents = new HashMap<>();
+        Map<Long, List<Long>> childrenByParent = new HashMap<>();
+        for (Long node : nodes) {
+            int inside = 0;
+            for (Long parentId : parentsByChild.getOrDefault(node, Collections.emptyList())) {
+                if (nodes.contains(parentId)) {
+                    childrenByParent.computeIfAbsent(parentId, id -> new ArrayList<>()).add(node);
+                    inside++;
+                }
+            }
+            pendingParents.put(node, inside);
+        }
+
+        Deque<Long> ready = new ArrayDeque<>();
+        pendingParents.forEach((node, count) -> {
+            if (count == 0) {
+                ready.add(node);
+            }
+        });
+
+        Map<Long, Map<Long, Integer>> result = new HashMap<>();
+        while (!ready.isEmpty()) {
+            Long node = ready.poll();
+            Map<Long, Integer> own = new HashMap<>();
+            own.put(node, 0);
+            for (Long parentId : parentsByChild.getOrDefault(node, Collections.emptyList())) {
+                Map<Long, Integer> parentAncestors = nodes.contains(parentId)
+                        ? result.get(parentId)
+                        : outsideAncestors.getOrDefault(parentId, Map.of(parentId, 0));
+                parentAncestors.forEach((ancestorId, depth) -> own.merge(ancestorId, depth + 1, Math::min));
+            }
+            result.put(node, own);
+            for (Long child : childrenByParent.getOrDefault(node, Collections.emptyList())) {
+                if (pendingParents.merge(child, -1, Integer::sum) == 0) {
+                    ready.add(child);
+                }
+            }
+        }
+
+        if (result.size() < nodes.size()) {
+            log.warn("CATEGORY: Closure skipped {} categories that are part of a parent cycle",
+                    nodes.size() - result.size());
+        }
+        return result;
+    }
+}
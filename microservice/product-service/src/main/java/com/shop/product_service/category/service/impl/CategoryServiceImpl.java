@@ -1,16 +1,25 @@
 package com.shop.product_service.category.service.impl;
 
+import com.shop.product_service.cache.services.TieredCacheService;
 import com.shop.product_service.category.dto.CategoryDto;
 import com.shop.product_service.category.dto.response.CategoryDtoResponse;
+import com.shop.product_service.category.event.CategoryChangedEvent;
 import com.shop.product_service.category.model.CategoryModel;
 import com.shop.product_service.category.populator.CategoryPopulator;
 import com.shop.product_service.category.repository.CategoryRepository;
+import com.shop.product_service.category.repository.projection.CategoryParentView;
+import com.shop.product_service.category.repository.projection.CategoryProductView;
+import com.shop.product_service.category.repository.projection.CategoryView;
+import com.shop.product_service.category.service.CategoryClosureService;
 import com.shop.product_service.category.service.CategoryService;
+import com.shop.product_service.category.snapshot.CategorySnapshot;
+import com.shop.product_service.category.snapshot.CategorySnapshotHolder;
 import com.shop.product_service.common.logging.MdcContextUtil;
 import com.shop.product_service.product.model.ProductModel;
 import com.shop.product_service.product.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
@@ -25,18 +34,21 @@ public class CategoryServiceImpl implements CategoryService {
     private final CategoryRepository categoryRepository;
     private final CategoryPopulator categoryMapper;
     private final ProductRepository productRepository;
+    private final CategorySnapshotHolder categorySnapshotHolder;
+    private final CategoryClosureService categoryClosureService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TieredCacheService tieredCacheService;
     private static final Long BRANDS_PARENT_CODE = 2L;
 
     @Override
+    @Transactional(readOnly = true)
     public List<CategoryDtoResponse> getAllCategories() {
         try {
-            List<CategoryModel> categories = categoryRepository.findAll();
+            List<CategoryView> categories = categoryRepository.findAllViews();
             if (CollectionUtils.isEmpty(categories)) {
                 return Collections.emptyList();
             }
-            return categories.stream()
-                    .map(categoryMapper::toDtoResponse)
-                    .collect(Collectors.toList());
+            return toDtoResponses(categories, categoryRepository.findAllProductLinks(), categoryRepository.findAllParentCodes());
         } catch (Exception ex) {
             log.error("Failed to fetch all categories", ex);
             throw new RuntimeException("Could not fetch categories", ex);
@@ -46,18 +58,44 @@ public class CategoryServiceImpl implements CategoryService {
     @Override
     public CategoryDtoResponse getCategoryByCode(Long code) {
         try {
-            CategoryModel category = categoryRepository.findByCode(code)
-                    .orElseThrow(() -> {
-                        log.warn("Category not found with code: {}", code);
-                        return new RuntimeException("Category not found with code: " + code);
-                    });
-            return categoryMapper.toDtoResponse(category);
+            return tieredCacheService.get(TieredCacheService.CATEGORIES, String.valueOf(code), CategoryDtoResponse.class, () -> {
+                CategoryView category = categoryRepository.findViewByCode(code)
+                        .orElseThrow(() -> {
+                            log.warn("Category not found with code: {}", code);
+                            return new RuntimeException("Category not found with code: " + code);
+                        });
+                Set<Long> codes = Set.of(code);
+                return toDtoResponses(List.of(category), categoryRepository.findProductLinks(codes),
+                        categoryRepository.findParentCodes(codes)).get(0);
+            });
         } catch (Exception ex) {
             log.error("Error while getting category by code: {}", code, ex);
             throw new RuntimeException("Error while getting category", ex);
         }
     }
 
+    /**
+     * Assemble responses from scalar rows; same shape as the entity mapping (empty productCodes, null parents for roots)
+     */
+    private List<CategoryDtoResponse> toDtoResponses(List<CategoryView> categories,
+                                                     List<CategoryProductView> productLinks,
+                                                     List<CategoryParentView> parentLinks) {
+        Map<Long, Set<Long>> productCodes = productLinks.stream()
+                .collect(Collectors.groupingBy(CategoryProductView::getCategoryCode,
+                        Collectors.mapping(CategoryProductView::getProductCode, Collectors.toSet())));
+        Map<Long, Set<Long>> parentCodes = parentLinks.stream()
+                .collect(Collectors.groupingBy(CategoryParentView::getCategoryCode,
+                        Collectors.mapping(CategoryParentView::getParentCode, Collectors.toSet())));
+        return categories.stream()
+                .map(view -> {
+                    CategoryDtoResponse dto = categoryMapper.toDtoResponse(view);
+                    dto.setProductCodes(productCodes.getOrDefault(view.getCode(), new HashSet<>()));
+                    dto.setParentCategoryCodes(parentCodes.get(view.getCode()));
+                    return dto;
+                })
+                .collect(Collectors.toList());
+    }
+
     @Override
     @Transactional
     public CategoryDtoResponse createCategory(CategoryDto categoryDto) {
@@ -118,7 +156,9 @@ public class CategoryServiceImpl implements CategoryService {
                 categoryModel.setProducts(Collections.emptySet());
             }
 
-            categoryRepository.save(categoryModel);
+            categoryRepository.saveAndFlush(categoryModel);
+            categoryClosureService.registerCategory(categoryModel.getId());
+            eventPublisher.publishEvent(new CategoryChangedEvent(categoryModel.getCode(), "created"));
             log.info("CATEGORY: Category created successfully - code: {}, type: {}",
                     categoryModel.getCode(), categoryModel.getType());
             return categoryMapper.toDtoResponse(categoryModel);
@@ -175,7 +215,7 @@ public class CategoryServiceImpl implements CategoryService {
                                 });
 
                         // Prevent circular reference
-                        if (isDescendant(newParent, category)) {
+                        if (categoryClosureService.isDescendant(newParent.getId(), category.getId())) {
                             log.warn("CATEGORY: Cannot set parent {} - circular reference detected", parentCode);
                             throw new IllegalArgumentException("Cannot set parent " + parentCode + ": circular reference detected");
                         }
@@ -218,7 +258,11 @@ public class CategoryServiceImpl implements CategoryService {
                 }
             }
 
-            categoryRepository.save(category);
+            categoryRepository.saveAndFlush(category);
+            if (parentsChanged) {
+                categoryClosureService.refreshAncestors(category.getId());
+            }
+            eventPublisher.publishEvent(new CategoryChangedEvent(code, "updated"));
             log.info("CATEGORY: Category updated successfully - code: {}, type: {}", code, category.getType());
             return categoryMapper.toDtoResponse(category);
         } catch (Exception ex) {
@@ -229,28 +273,6 @@ public class CategoryServiceImpl implements CategoryService {
         }
     }
 
-    /**
-     * Check if potentialDescendant is a descendant of potentialAncestor
-     */
-    private boolean isDescendant(CategoryModel potentialDescendant, CategoryModel potentialAncestor) {
-        if (potentialDescendant == null || potentialAncestor == null) {
-            return false;
-        }
-        if (potentialDescendant.getId().equals(potentialAncestor.getId())) {
-            return true;
-        }
-        Set<CategoryModel> children = potentialAncestor.getChildren();
-        if (CollectionUtils.isEmpty(children)) {
-            return false;
-        }
-        for (CategoryModel child : children) {
-            if (child.getId().equals(potentialDescendant.getId()) || isDescendant(potentialDescendant, child)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     @Override
     @Transactional
     public boolean deleteCategory(Long code) {
@@ -260,11 +282,16 @@ public class CategoryServiceImpl implements CategoryService {
         }
         try {
             MdcContextUtil.setCategoryContext(String.valueOf(code));
-            if (!categoryRepository.existsByCode(code)) {
+            Optional<CategoryModel> category = categoryRepository.findByCode(code);
+            if (category.isEmpty()) {
                 log.info("CATEGORY: Attempted to delete non-existing category with code {}", code);
                 return false;
             }
+            List<Long> childIds = categoryClosureService.unregisterCategory(category.get().getId());
             categoryRepository.deleteByCode(code);
+            categoryRepository.flush();
+            childIds.forEach(categoryClosureService::refreshAncestors);
+            eventPublisher.publishEvent(new CategoryChangedEvent(code, "deleted"));
             log.info("CATEGORY: Category deleted successfully - code: {}", code);
             return true;
         } catch (Exception ex) {
@@ -280,16 +307,17 @@ public class CategoryServiceImpl implements CategoryService {
     public List<CategoryDtoResponse> getCategoryHierarchy() {
         try {
             log.info("CATEGORY: Building full category hierarchy");
-            List<CategoryModel> independentCategories = categoryRepository.findByParentCategoriesIsEmpty();
-            if (CollectionUtils.isEmpty(independentCategories)) {
+            CategorySnapshot snapshot = categorySnapshotHolder.get();
+            if (CollectionUtils.isEmpty(snapshot.getRootCodes())) {
                 log.info("CATEGORY: No independent categories found for hierarchy");
                 return Collections.emptyList();
             }
 
-            List<CategoryDtoResponse> hierarchy = independentCategories.stream()
-                    .map(this::buildCategoryTree)
+            List<CategoryDtoResponse> hierarchy = snapshot.getRootCodes().stream()
+                    .map(rootCode -> buildCategoryTree(snapshot, rootCode, new HashSet<>()))
                     .collect(Collectors.toList());
-            log.info("CATEGORY: Category hierarchy built with {} independent categories", hierarchy.size());
+            log.info("CATEGORY: Category hierarchy built with {} independent categories from snapshot v{}",
+                    hierarchy.size(), snapshot.getVersion());
             return hierarchy;
         } catch (Exception ex) {
             log.error("CATEGORY: Failed to build category hierarchy", ex);
@@ -298,20 +326,18 @@ public class CategoryServiceImpl implements CategoryService {
     }
 
     /**
-     * Recursively build category tree with children
+     * Recursively build category tree with children from the snapshot
      */
-    private CategoryDtoResponse buildCategoryTree(CategoryModel category) {
-        CategoryDtoResponse dto = categoryMapper.toDtoResponse(category);
+    private CategoryDtoResponse buildCategoryTree(CategorySnapshot snapshot, Long code, Set<Long> path) {
+        CategoryDtoResponse dto = categoryMapper.toDtoResponse(snapshot.getNodes().get(code));
 
-        Set<CategoryModel> children = category.getChildren();
-        if (!CollectionUtils.isEmpty(children)) {
-            List<CategoryDtoResponse> childDtos = children.stream()
-                    .map(this::buildCategoryTree)
-                    .collect(Collectors.toList());
-            dto.setChildren(childDtos);
-        } else {
-            dto.setChildren(Collections.emptyList());
-        }
+        path.add(code);
+        List<CategoryDtoResponse> childDtos = snapshot.getChildCodes(code).stream()
+                .filter(childCode -> !path.contains(childCode))
+                .map(childCode -> buildCategoryTree(snapshot, childCode, path))
+                .collect(Collectors.toList());
+        path.remove(code);
+        dto.setChildren(childDtos);
 
         return dto;
     }
@@ -323,16 +349,19 @@ public class CategoryServiceImpl implements CategoryService {
         }
         try {
             log.info("CATEGORY: Getting all descendant codes for category: {}", categoryCode);
-            CategoryModel category = categoryRepository.findByCode(categoryCode).orElse(null);
-            if (category == null) {
-                log.warn("CATEGORY: Category not found with code: {}", categoryCode);
-                return Collections.singletonList(categoryCode);
+            CategorySnapshot snapshot = categorySnapshotHolder.get();
+            List<Long> codes;
+            if (snapshot.find(categoryCode).isPresent()) {
+                codes = snapshot.getDescendantCodes(categoryCode);
+            } else {
+                // Not in the snapshot yet (e.g. rebuild still pending), ask the closure table
+                codes = categoryClosureService.getDescendantCodes(categoryCode);
+                if (codes.isEmpty()) {
+                    log.warn("CATEGORY: Category not found with code: {}", categoryCode);
+                    return Collections.singletonList(categoryCode);
+                }
             }
 
-            List<Long> codes = new ArrayList<>();
-            codes.add(categoryCode);
-            collectDescendantCodes(category, codes);
-
             log.info("CATEGORY: Found {} total category codes (including descendants) for category: {}",
                     codes.size(), categoryCode);
             return codes;
@@ -342,17 +371,27 @@ public class CategoryServiceImpl implements CategoryService {
         }
     }
 
-    /**
-     * Recursively collect all descendant category codes
-     */
-    private void collectDescendantCodes(CategoryModel category, List<Long> codes) {
-        Set<CategoryModel> children = category.getChildren();
-        if (CollectionUtils.isEmpty(children)) {
-            return;
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, Set<Long>> getParentCodes() {
+        try {
+            // Read straight from category_parents: callers run right after a hierarchy change commits
+            return categoryRepository.findAllParentCodes().stream()
+                    .collect(Collectors.groupingBy(CategoryParentView::getCategoryCode,
+                            Collectors.mapping(CategoryParentView::getParentCode, Collectors.toSet())));
+        } catch (Exception ex) {
+            log.error("CATEGORY: Failed to fetch parent codes", ex);
+            throw new RuntimeException("Could not fetch parent codes", ex);
         }
-        for (CategoryModel child : children) {
-            codes.add(child.getCode());
-            collectDescendantCodes(child, codes);
+    }
+
+    @Override
+    public int rebuildClosure() {
+        try {
+            return categoryClosureService.rebuild();
+        } catch (Exception ex) {
+            log.error("CATEGORY: Failed to rebuild category closure", ex);
+            throw new RuntimeException("Failed to rebuild category closure", ex);
         }
     }
 
@@ -361,21 +400,22 @@ public class CategoryServiceImpl implements CategoryService {
     public List<CategoryDtoResponse> getBrands() {
         try {
             log.info("CATEGORY: Fetching brands (children of code={})", BRANDS_PARENT_CODE);
-            Optional<CategoryModel> brandsParent = categoryRepository.findByCode(BRANDS_PARENT_CODE);
+            CategorySnapshot snapshot = categorySnapshotHolder.get();
 
-            if (brandsParent.isEmpty()) {
+            if (snapshot.find(BRANDS_PARENT_CODE).isEmpty()) {
                 log.warn("CATEGORY: Brands parent category (code={}) not found", BRANDS_PARENT_CODE);
                 return Collections.emptyList();
             }
 
-            List<CategoryModel> brands = categoryRepository.findByParentCategoriesContaining(brandsParent.get());
+            List<Long> brandCodes = snapshot.getChildCodes(BRANDS_PARENT_CODE);
 
-            if (CollectionUtils.isEmpty(brands)) {
+            if (CollectionUtils.isEmpty(brandCodes)) {
                 log.info("CATEGORY: No brands found under code={}", BRANDS_PARENT_CODE);
                 return Collections.emptyList();
             }
 
-            List<CategoryDtoResponse> result = brands.stream()
+            List<CategoryDtoResponse> result = brandCodes.stream()
+                    .map(snapshot.getNodes()::get)
                     .map(categoryMapper::toDtoResponse)
                     .collect(Collectors.toList());
 
@@ -0,0 +1,153 @@
+package com.shop.product_service.category.snapshot;
+
+import com.shop.product_service.category.model.CategoryType;
+import com.shop.product_service.category.repository.projection.CategoryEdgeView;
+import com.shop.product_service.category.repository.projection.CategoryProductView;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Immutable, versioned view of the whole category DAG.
+ * Built from bulk rows so that reads never touch lazy Hibernate collections.
+ */
+@Getter
+public final class CategorySnapshot {
+
+    private final long version;
+    private final Instant builtAt;
+    private final Map<Long, Node> nodes;
+    private final Map<Long, List<Long>> childCodes;
+    private final List<Long> rootCodes;
+
+    private CategorySnapshot(long version, Instant builtAt, Map<Long, Node> nodes,
+                             Map<Long, List<Long>> childCodes, List<Long> rootCodes) {
+        this.version = version;
+        this.builtAt = builtAt;
+        this.nodes = nodes;
+        this.childCodes = childCodes;
+        this.rootCodes = rootCodes;
+    }
+
+    public static CategorySnapshot build(long version, List<CategoryEdgeView> edges, List<CategoryProductView> productLinks) {
+        Map<Long, CategoryEdgeView> categories = new LinkedHashMap<>();
+        Map<Long, Set<Long>> parents = new HashMap<>();
+        Map<Long, List<Long>> children = new HashMap<>();
+        for (CategoryEdgeView edge : edges) {
+            categories.putIfAbsent(edge.getCode(), edge);
+            Set<Long> parentCodes = parents.computeIfAbsent(edge.getCode(), c -> new LinkedHashSet<>());
+            if (edge.getParentCode() != null && parentCodes.add(edge.getParentCode())) {
+                children.computeIfAbsent(edge.getParentCode(), c -> new ArrayList<>()).add(edge.getCode());
+            }
+        }
+
+        Map<Long, Set<Long>> products = new HashMap<>();
+        for (CategoryProductView link : productLinks) {
+            products.computeIfAbsent(link.getCategoryCode(), c -> new HashSet<>()).add(link.getProductCode());
+        }
+
+        Map<Long, Node> nodes = new LinkedHashMap<>();
+        List<Long> roots = new ArrayList<>();
+        categories.forEach((code, row) -> {
+            Set<Long> parentCodes = parents.get(code);
+            nodes.put(code, new Node(row.getId(), code, row.getName(), row.getDescription(), row.getType(),
+                    Collections.unmodifiableSet(parentCodes),
+                    Collections.unmodifiableSet(products.getOrDefault(code, Collections.emptySet()))));
+            if (parentCodes.isEmpty()) {
+                roots.add(code);
+            }
+        });
+
+        Map<Long, List<Long>> childCodes = new HashMap<>();
+        children.forEach((code, list) -> childCodes.put(code, List.copyOf(list)));
+
+        return new CategorySnapshot(version, Instant.now(), Collections.unmodifiableMap(nodes),
+                Collections.unmodifiableMap(childCodes), List.copyOf(roots));
+    }
+
+    /**
+     * Copy with one product's category links replaced, everything else shared with this snapshot.
+     */
+    public CategorySnapshot withProductCategories(long version, Long productCode, Set<Long> categoryCodes) {
+        Map<Long, Node> updated = new LinkedHashMap<>(nodes);
+        nodes.forEach((code, node) -> {
+            boolean linked = node.getProductCodes().contains(productCode);
+            if (linked != categoryCodes.contains(code)) {
+                Set<Long> products = new HashSet<>(node.getProductCodes());
+                if (linked) {
+                    products.remove(productCode);
+                } else {
+                    products.add(productCode);
+                }
+                updated.put(code, node.withProductCodes(Collections.unmodifiableSet(products)));
+            }
+        });
+        return new CategorySnapshot(version, Instant.now(), Collections.unmodifiableMap(updated), childCodes, rootCodes);
+    }
+
+    public Optional<Node> find(Long code) {
+        return Optional.ofNullable(nodes.get(code));
+    }
+
+    public List<Long> getChildCodes(Long code) {
+        return childCodes.getOrDefault(code, Collections.emptyList());
+    }
+
+    /**
+     * The category itself followed by every reachable descendant, each listed once.
+     */
+    public List<Long> getDescendantCodes(Long code) {
+        Set<Long> visited = new LinkedHashSet<>();
+        Deque<Long> queue = new ArrayDeque<>();
+        queue.add(code);
+        while (!queue.isEmpty()) {
+            Long current = queue.poll();
+            if (visited.add(current)) {
+                queue.addAll(getChildCodes(current));
+            }
+        }
+        return new ArrayList<>(visited);
+    }
+
+    /**
+     * Every category reachable through parent links, the category itself excluded.
+     */
+    public Set<Long> getAncestorCodes(Long code) {
+        Set<Long> visited = new LinkedHashSet<>();
+        Deque<Long> queue = new ArrayDeque<>(getParentCodes(code));
+        while (!queue.isEmpty()) {
+            Long current = queue.poll();
+            if (!current.equals(code) && visited.add(current)) {
+                queue.addAll(getParentCodes(current));
+            }
+        }
+        return visited;
+    }
+
+    private Set<Long> getParentCodes(Long code) {
+        Node node = nodes.get(code);
+        return node == null ? Collections.emptySet() : node.getParentCategoryCodes();
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class Node {
+        private final Long id;
+        private final Long code;
+        private final String name;
+        private final String description;
+        private final CategoryType type;
+        private final Set<Long> parentCategoryCodes;
+        private final Set<Long> productCodes;
+
+        Node withProductCodes(Set<Long> productCodes) {
+            return new Node(id, code, name, description, type, parentCategoryCodes, productCodes);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.shop.product_service.category.snapshot;
+
+import com.shop.product_service.cache.services.impl.DefaultTieredCacheService;
+import com.shop.product_service.category.event.CategoryChangedEvent;
+import com.shop.product_service.category.repository.CategoryRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the current {@link CategorySnapshot} and swaps in a new one after every committed category change.
+ * Category changes rebuild it from the database; product link changes are applied to a copy of the current one.
+ * Both are broadcast so the other instances follow.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CategorySnapshotHolder {
+
+    // Snapshot changes travel on the cache invalidation channel under this name
+    public static final String TOPIC = "category-snapshot";
+    private static final String PRODUCT_SEPARATOR = "=";
+
+    private final CategoryRepository categoryRepository;
+    private final MeterRegistry meterRegistry;
+    private final DefaultTieredCacheService tieredCacheService;
+
+    private final AtomicReference<CategorySnapshot> current = new AtomicReference<>();
+    private final AtomicLong versionSequence = new AtomicLong();
+    private Timer rebuildTimer;
+
+    @PostConstruct
+    void registerMetrics() {
+        rebuildTimer = Timer.builder("category.snapshot.rebuild")
+                .description("Time spent loading and building the category snapshot")
+                .register(meterRegistry);
+        Gauge.builder("category.snapshot.age", this, CategorySnapshotHolder::ageSeconds)
+                .description("Seconds since the current category snapshot was built")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("category.snapshot.version", versionSequence, AtomicLong::get)
+                .description("Version of the current category snapshot")
+                .register(meterRegistry);
+    }
+
+    public CategorySnapshot get() {
+        CategorySnapshot snapshot = current.get();
+        return snapshot != null ? snapshot : initialize();
+    }
+
+    public synchronized CategorySnapshot rebuild() {
+        long start = System.nanoTime();
+        CategorySnapshot snapshot = CategorySnapshot.build(versionSequence.get() + 1,
+                categoryRepository.findAllEdges(),
+                categoryRepository.findAllProductLinks());
+        current.set(snapshot);
+        versionSequence.set(snapshot.getVersion());
+        long elapsed = System.nanoTime() - start;
+        rebuildTimer.record(Duration.ofNanos(elapsed));
+        log.info("CATEGORY: Snapshot v{} built with {} categories in {} ms",
+                snapshot.getVersion(), snapshot.size(), Duration.ofNanos(elapsed).toMillis());
+        return snapshot;
+    }
+
+    /**
+     * Replaces one product's category links in the current snapshot, without reloading anything.
+     */
+    public synchronized void applyProductCategories(Long productCode, Set<Long> categoryCodes) {
+        CategorySnapshot snapshot = current.get();
+        if (snapshot == null) {
+            // Not built yet, the first read loads it with this change included
+            return;
+        }
+        CategorySnapshot updated = snapshot.withProductCategories(versionSequence.get() + 1, productCode, categoryCodes);
+        current.set(updated);
+        versionSequence.set(updated.getVersion());
+        log.debug("CATEGORY: Snapshot v{} links product {} to categories {}", updated.getVersion(), productCode, categoryCodes);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        try {
+            log.debug("CATEGORY: Updating snapshot after change - categoryCode: {}, productCode: {}, reason: {}",
+                    event.getCategoryCode(), event.getProductCode(), event.getReason());
+            if (event.isProductLinkChange()) {
+                applyProductCategories(event.getProductCode(), event.getProductCategoryCodes());
+                tieredCacheService.broadcast(TOPIC, event.getProductCode() + PRODUCT_SEPARATOR
+                        + event.getProductCategoryCodes().stream().map(String::valueOf).collect(Collectors.joining(",")));
+            } else {
+                rebuild();
+                tieredCacheService.broadcast(TOPIC, DefaultTieredCacheService.ALL_KEYS);
+            }
+        } catch (Exception ex) {
+            log.error("CATEGORY: Failed to update snapshot, keeping v{}", versionSequence.get(), ex);
+        }
+    }
+
+    /**
+     * Applies a change another instance made: "*" for a rebuild, or "productCode=categoryCode,..." for a product's links.
+     */
+    public void onRemoteChange(String payload) {
+        try {
+            int separator = payload.indexOf(PRODUCT_SEPARATOR);
+            if (separator < 0) {
+                log.debug("CATEGORY: Rebuilding snapshot after a change on another instance");
+                rebuild();
+                return;
+            }
+            String codes = payload.substring(separator + 1);
+            Set<Long> categoryCodes = codes.isEmpty() ? Set.of() : Arrays.stream(codes.split(","))
+                    .map(Long::valueOf)
+                    .collect(Collectors.toSet());
+            applyProductCategories(Long.valueOf(payload.substring(0, separator)), categoryCodes);
+        } catch (Exception ex) {
+            log.error("CATEGORY: Failed to apply remote snapshot change {}, keeping v{}", payload, versionSequence.get(), ex);
+        }
+    }
+
+    private synchronized CategorySnapshot initialize() {
+        CategorySnapshot snapshot = current.get();
+        return snapshot != null ? snapshot : rebuild();
+    }
+
+    private double ageSeconds() {
+        CategorySnapshot snapshot = current.get();
+        if (snapshot == null) {
+            return Double.NaN;
+        }
+        return Duration.between(snapshot.getBuiltAt(), Instant.now()).toMillis() / 1000.0;
+    }
+}
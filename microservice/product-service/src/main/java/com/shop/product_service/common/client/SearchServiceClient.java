@@ -0,0 +1,12 @@
+package com.shop.product_service.common.client;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+
+@FeignClient(value = "search-service", path = "/api/search/products")
+public interface SearchServiceClient {
+
+    @PostMapping("/reindex/category/{code}")
+    String reindexCategory(@PathVariable("code") Long code);
+}
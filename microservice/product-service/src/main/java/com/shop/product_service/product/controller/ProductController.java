@@ -1,12 +1,20 @@
 package com.shop.product_service.product.controller;
 
 import com.shop.product_service.product.dto.ProductDto;
+import com.shop.product_service.product.dto.response.ProductChangesResponse;
+import com.shop.product_service.product.dto.response.ProductCursorResponse;
 import com.shop.product_service.product.dto.response.ProductDtoResponse;
 import com.shop.product_service.product.dto.response.ProductPageableResponse;
+import com.shop.product_service.product.service.ProductExportService;
 import com.shop.product_service.product.service.ProductService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
 
 @RestController
 @RequestMapping(value = "/api/products")
@@ -15,6 +23,7 @@ import org.springframework.web.bind.annotation.*;
 public class ProductController extends AbstractController{
 
     private final ProductService productService;
+    private final ProductExportService productExportService;
 
     @GetMapping(value = "/{id}")
     public ProductDtoResponse getProduct(@PathVariable("id") Long code) {
@@ -36,6 +45,51 @@ public class ProductController extends AbstractController{
         return response;
     }
 
+    @GetMapping(value = "/scroll")
+    public ProductCursorResponse scrollProducts(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false, defaultValue = "20") Integer limit,
+            @RequestParam(value = "order", required = false, defaultValue = "ASC") String order,
+            @RequestParam(value = "sort", required = false, defaultValue = "id") String sort) {
+        log.info("Request received: GET /api/products/scroll - limit: {}, order: {}, sort: {}, hasCursor: {}",
+                limit, order, sort, cursor != null);
+        ProductCursorResponse response = productService.getProductsAfter(cursor, limit, order, sort);
+        log.info("Request completed: GET /api/products/scroll - Status: 200, count: {}, hasNext: {}",
+                response.getProducts().size(), response.isHasNext());
+        return response;
+    }
+
+    @GetMapping(value = "/changes")
+    public ProductChangesResponse getChanges(
+            @RequestParam(value = "since", required = false) String since,
+            @RequestParam(value = "limit", required = false, defaultValue = "500") Integer limit) {
+        log.info("Request received: GET /api/products/changes - limit: {}, hasCursor: {}", limit, since != null);
+        ProductChangesResponse response = productService.getChangesSince(since, limit);
+        log.info("Request completed: GET /api/products/changes - Status: 200, count: {}, hasMore: {}",
+                response.getChanges().size(), response.isHasMore());
+        return response;
+    }
+
+    @PostMapping(value = "/batch")
+    public List<ProductDtoResponse> getProductsByCodes(@RequestBody List<Long> codes) {
+        log.info("Request received: POST /api/products/batch - count: {}", codes.size());
+        List<ProductDtoResponse> response = productService.getProductsByCodes(codes);
+        log.info("Request completed: POST /api/products/batch - Status: 200, found: {}", response.size());
+        return response;
+    }
+
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        log.info("Request received: GET /api/products/export");
+        StreamingResponseBody body = out -> {
+            long count = productExportService.exportProducts(out);
+            log.info("Request completed: GET /api/products/export - Status: 200, products: {}", count);
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
     @PostMapping(value = "/save")
     public ProductDtoResponse saveProduct(@RequestBody ProductDto productDTO) {
         log.info("Request received: POST /api/products/save - productName: {}", productDTO.getName());
@@ -0,0 +1,60 @@
+package com.shop.product_service.product.cursor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Encodes change feed positions, the sequence number of the last change handed out,
+ * as opaque URL-safe tokens.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductChangeCursorCodec {
+
+    public static final Position START = new Position(0L);
+
+    private final ObjectMapper objectMapper;
+
+    public String encode(Position position) {
+        Map<String, Object> token = new LinkedHashMap<>();
+        token.put("seq", position.getSequence());
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(token));
+        } catch (Exception ex) {
+            throw new IllegalStateException("Could not encode change cursor", ex);
+        }
+    }
+
+    public Position decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return START;
+        }
+        Map<?, ?> token;
+        try {
+            token = objectMapper.readValue(Base64.getUrlDecoder().decode(cursor), Map.class);
+        } catch (Exception ex) {
+            throw new IllegalArgumentException("Invalid change cursor", ex);
+        }
+        if (!token.containsKey("seq") && token.containsKey("at")) {
+            // Time-based cursor from before the sequence feed: replaying from the start is harmless
+            return START;
+        }
+        try {
+            return new Position(objectMapper.convertValue(token.get("seq"), Long.class));
+        } catch (Exception ex) {
+            throw new IllegalArgumentException("Invalid change cursor", ex);
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Position {
+        private final long sequence;
+    }
+}
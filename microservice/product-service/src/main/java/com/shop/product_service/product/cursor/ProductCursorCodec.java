@@ -0,0 +1,82 @@
+package com.shop.product_service.product.cursor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Encodes keyset positions of the product listing as opaque, URL-safe continuation tokens.
+ * The token also carries the sort so follow-up requests cannot mix orderings.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductCursorCodec {
+
+    // Keyset sort keys must be non-null so that (key, id) comparisons are total
+    public static final Map<String, Class<?>> SORT_KEYS = Map.of(
+            "id", Long.class,
+            "code", Long.class,
+            "price", Double.class
+    );
+    private static final String ID = "id";
+
+    private final ObjectMapper objectMapper;
+
+    public String encode(String sort, Sort.Direction direction, KeysetScrollPosition position) {
+        Map<String, Object> token = new LinkedHashMap<>();
+        token.put("sort", sort);
+        token.put("order", direction.name());
+        token.put("keys", position.getKeys());
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(token);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (Exception ex) {
+            throw new IllegalStateException("Could not encode product cursor", ex);
+        }
+    }
+
+    public Decoded decode(String cursor) {
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(cursor);
+            Map<?, ?> token = objectMapper.readValue(new String(json, StandardCharsets.UTF_8), Map.class);
+            String sort = validateSort((String) token.get("sort"));
+            Sort.Direction direction = Sort.Direction.fromString((String) token.get("order"));
+            Map<?, ?> rawKeys = (Map<?, ?>) token.get("keys");
+
+            Map<String, Object> keys = new LinkedHashMap<>();
+            keys.put(sort, objectMapper.convertValue(rawKeys.get(sort), SORT_KEYS.get(sort)));
+            if (!ID.equals(sort)) {
+                keys.put(ID, objectMapper.convertValue(rawKeys.get(ID), Long.class));
+            }
+            return new Decoded(sort, direction, ScrollPosition.of(keys, ScrollPosition.Direction.FORWARD));
+        } catch (IllegalArgumentException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IllegalArgumentException("Invalid product cursor", ex);
+        }
+    }
+
+    public String validateSort(String sort) {
+        if (sort == null || !SORT_KEYS.containsKey(sort)) {
+            throw new IllegalArgumentException("Cursor listing can only be sorted by " + SORT_KEYS.keySet());
+        }
+        return sort;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Decoded {
+        private final String sort;
+        private final Sort.Direction direction;
+        private final KeysetScrollPosition position;
+    }
+}
@@ -0,0 +1,16 @@
+package com.shop.product_service.product.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@Builder
+public class ProductChangeResponse {
+    private Long code;
+    private boolean deleted;
+    private Instant modifiedAt;
+    // Current state of the product, null for deletions
+    private ProductDtoResponse product;
+}
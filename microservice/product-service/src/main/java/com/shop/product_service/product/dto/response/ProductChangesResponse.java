@@ -0,0 +1,17 @@
+package com.shop.product_service.product.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class ProductChangesResponse {
+    private List<ProductChangeResponse> changes;
+    // Always set: pass it back as "since", unchanged when there was nothing new
+    private String nextCursor;
+    private boolean hasMore;
+    // The cursor is behind pruned tombstones: deletes were missed, rebuild from a full export and continue from nextCursor
+    private boolean reset;
+}
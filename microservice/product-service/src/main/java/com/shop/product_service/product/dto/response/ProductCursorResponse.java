@@ -0,0 +1,14 @@
+package com.shop.product_service.product.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class ProductCursorResponse {
+    private List<ProductDtoResponse> products;
+    private String nextCursor;
+    private boolean hasNext;
+}
@@ -0,0 +1,19 @@
+package com.shop.product_service.product.dto.response;
+
+import lombok.Data;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+@Data
+public class ProductExportLine {
+    private Long code;
+    private String name;
+    private String title;
+    private String description;
+    private String brand;
+    private double price;
+    private String imageUrl;
+    private Set<Long> categoryCodes = new LinkedHashSet<>();
+    private Set<Long> ancestorCategoryCodes = new LinkedHashSet<>();
+}
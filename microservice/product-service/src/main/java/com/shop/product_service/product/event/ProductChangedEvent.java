@@ -0,0 +1,15 @@
+package com.shop.product_service.product.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published when a product is created, updated or deleted.
+ * Listeners are expected to run after the surrounding transaction commits.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ProductChangedEvent {
+    private final Long productCode;
+    private final boolean deleted;
+}
@@ -0,0 +1,37 @@
+package com.shop.product_service.product.listener;
+
+import com.shop.product_service.product.event.ProductChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Tells other services that a product changed so they can drop their local copies.
+ * Messages are "updated|code" or "deleted|code" on a Redis pub/sub channel; subscribers that miss one
+ * rely on their own TTL.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductEventBroadcaster {
+
+    public static final String MESSAGE_SEPARATOR = "|";
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${product.events.channel}")
+    private String channel;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        String type = event.isDeleted() ? "deleted" : "updated";
+        try {
+            stringRedisTemplate.convertAndSend(channel, type + MESSAGE_SEPARATOR + event.getProductCode());
+        } catch (Exception ex) {
+            log.warn("Failed to publish product {} event for {}: {}", type, event.getProductCode(), ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.shop.product_service.product.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Latest change of one product for the change feed, moved to a new sequence number on every write.
+ * Kept after a delete as a tombstone until the retention runs out; replaced if the code is created again.
+ */
+@Entity
+@Table(name = "p_product_change", indexes = @Index(name = "idx_product_change_sequence", columnList = "sequence", unique = true))
+@Getter
+@Setter
+@NoArgsConstructor
+public class ProductChange {
+
+    @Id
+    private Long code;
+    @Column(nullable = false)
+    private long sequence;
+    private boolean deleted;
+    @Column(nullable = false)
+    private Instant changedAt;
+
+    public ProductChange(Long code) {
+        this.code = code;
+    }
+}
@@ -0,0 +1,32 @@
+package com.shop.product_service.product.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Single row handing out change feed sequence numbers. Writers lock it until they commit,
+ * so sequence numbers become visible in commit order and the feed never skips a slow transaction.
+ */
+@Entity
+@Table(name = "p_product_change_sequence")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ProductChangeSequence {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+    private long lastSequence;
+    // Tombstones up to this sequence have been pruned, cursors behind it may have missed deletes
+    private long prunedThrough;
+
+    public ProductChangeSequence(Integer id) {
+        this.id = id;
+    }
+}
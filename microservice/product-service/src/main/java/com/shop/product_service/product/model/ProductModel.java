@@ -11,7 +11,9 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "p_product")
+@Table(name = "p_product", indexes = {
+        @Index(name = "idx_product_price_id", columnList = "price, id")
+})
 @Getter
 @Setter
 public class ProductModel {
@@ -0,0 +1,26 @@
+package com.shop.product_service.product.repository;
+
+import com.shop.product_service.product.model.ProductChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface ProductChangeRepository extends JpaRepository<ProductChange, Long> {
+
+    // Change feed: keyset on the commit-ordered sequence
+    List<ProductChange> findBySequenceGreaterThanOrderBySequence(long sequence, Limit limit);
+
+    @Query("SELECT MAX(c.sequence) FROM ProductChange c WHERE c.deleted = true AND c.changedAt < :before")
+    Long findLastDeletedSequenceBefore(@Param("before") Instant before);
+
+    @Modifying
+    @Query("DELETE FROM ProductChange c WHERE c.deleted = true AND c.sequence <= :sequence")
+    int deleteTombstonesThrough(@Param("sequence") long sequence);
+}
@@ -0,0 +1,20 @@
+package com.shop.product_service.product.repository;
+
+import com.shop.product_service.product.model.ProductChangeSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ProductChangeSequenceRepository extends JpaRepository<ProductChangeSequence, Integer> {
+
+    // SELECT ... FOR UPDATE, held until the caller's transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ProductChangeSequence s WHERE s.id = :id")
+    Optional<ProductChangeSequence> lockById(@Param("id") Integer id);
+}
@@ -1,14 +1,51 @@
 package com.shop.product_service.product.repository;
 
 import com.shop.product_service.product.model.ProductModel;
+import com.shop.product_service.product.repository.projection.ProductExportView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<ProductModel, Long> {
     Optional<ProductModel> findByCode(Long code);
     boolean existsByCode(Long code);
     void deleteByCode(Long code);
+
+    // Multi-get: products and their categories in a single join query
+    @EntityGraph(attributePaths = "categories")
+    List<ProductModel> findByCodeIn(Collection<Long> codes);
+
+    // Keyset scrolling: seeks on (sort key, id) and never issues a count query
+    Window<ProductModel> findBy(ScrollPosition position, Sort sort, Limit limit);
+
+    // Products stored before the change feed existed
+    @Query("SELECT p.code FROM ProductModel p WHERE NOT EXISTS " +
+            "(SELECT c.code FROM ProductChange c WHERE c.code = p.code) ORDER BY p.code")
+    List<Long> findCodesWithoutChange(Limit limit);
+
+    // Export: forward-only cursor (MySQL streams row by row with Integer.MIN_VALUE fetch size), scalar rows only
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT p.id AS id, p.code AS code, p.name AS name, p.title AS title, p.description AS description, " +
+            "p.brand AS brand, p.price AS price, p.imageUrl AS imageUrl, c.code AS categoryCode " +
+            "FROM ProductModel p LEFT JOIN p.categories c ORDER BY p.id")
+    Stream<ProductExportView> streamAllForExport();
 }
@@ -0,0 +1,17 @@
+package com.shop.product_service.product.repository.projection;
+
+/**
+ * One row per (product, category) link, products without categories come back once with a null categoryCode.
+ * Rows of the same product are adjacent because the export query orders by product id.
+ */
+public interface ProductExportView {
+    Long getId();
+    Long getCode();
+    String getName();
+    String getTitle();
+    String getDescription();
+    String getBrand();
+    double getPrice();
+    String getImageUrl();
+    Long getCategoryCode();
+}
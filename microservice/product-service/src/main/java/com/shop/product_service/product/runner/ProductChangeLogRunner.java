@@ -0,0 +1,37 @@
+package com.shop.product_service.product.runner;
+
+import com.shop.product_service.product.service.ProductChangeLogService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gives every product without a change feed entry one, so products stored before the feed existed are emitted too.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ProductChangeLogRunner implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final ProductChangeLogService productChangeLogService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            long total = 0;
+            int added;
+            while ((added = productChangeLogService.backfill(BATCH_SIZE)) > 0) {
+                total += added;
+            }
+            if (total > 0) {
+                log.info("Product change feed backfilled for {} products", total);
+            }
+        } catch (Exception ex) {
+            log.error("Product change feed backfill failed, it is retried on the next start", ex);
+        }
+    }
+}
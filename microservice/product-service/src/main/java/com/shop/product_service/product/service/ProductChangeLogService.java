@@ -0,0 +1,12 @@
+package com.shop.product_service.product.service;
+
+public interface ProductChangeLogService {
+    // Moves the product to the head of the change feed; joins the caller's transaction and holds the sequence until it commits
+    void record(Long code, boolean deleted);
+
+    // Adds feed entries for up to batchSize products that have none yet, returns how many were added
+    int backfill(int batchSize);
+
+    // Drops tombstones older than the retention and remembers how far the feed was pruned
+    void pruneTombstones();
+}
@@ -0,0 +1,11 @@
+package com.shop.product_service.product.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ProductExportService {
+    /**
+     * Writes every product as one JSON object per line and returns the number of lines written.
+     */
+    long exportProducts(OutputStream out) throws IOException;
+}
@@ -1,17 +1,23 @@
 package com.shop.product_service.product.service;
 
 import com.shop.product_service.product.dto.ProductDto;
+import com.shop.product_service.product.dto.response.ProductChangesResponse;
+import com.shop.product_service.product.dto.response.ProductCursorResponse;
 import com.shop.product_service.product.dto.response.ProductDtoResponse;
 import com.shop.product_service.product.dto.response.ProductPageableResponse;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ProductService {
     List<ProductDtoResponse> getAllProducts();
     ProductDtoResponse getProductByCode(Long code);
+    List<ProductDtoResponse> getProductsByCodes(Collection<Long> codes);
     ProductDtoResponse createProduct(ProductDto productDto) ;
     ProductDtoResponse updateProduct(ProductDto productDto);
     boolean deleteProduct(Long code);
     ProductPageableResponse getPageableProducts(Pageable pageable);
+    ProductCursorResponse getProductsAfter(String cursor, int limit, String order, String sort);
+    ProductChangesResponse getChangesSince(String since, int limit);
 }
@@ -0,0 +1,94 @@
+package com.shop.product_service.product.service.impl;
+
+import com.shop.product_service.product.model.ProductChange;
+import com.shop.product_service.product.model.ProductChangeSequence;
+import com.shop.product_service.product.repository.ProductChangeRepository;
+import com.shop.product_service.product.repository.ProductChangeSequenceRepository;
+import com.shop.product_service.product.repository.ProductRepository;
+import com.shop.product_service.product.service.ProductChangeLogService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ProductChangeLogServiceImpl implements ProductChangeLogService {
+
+    private final ProductChangeRepository productChangeRepository;
+    private final ProductChangeSequenceRepository productChangeSequenceRepository;
+    private final ProductRepository productRepository;
+
+    // Consumers further behind than this get a reset and rebuild their copy
+    @Value("${product.changes.tombstone-retention:P30D}")
+    private Duration tombstoneRetention;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Long code, boolean deleted) {
+        ProductChange change = productChangeRepository.findById(code).orElseGet(() -> new ProductChange(code));
+        change.setSequence(nextSequences(1));
+        change.setDeleted(deleted);
+        change.setChangedAt(Instant.now());
+        productChangeRepository.save(change);
+    }
+
+    @Override
+    @Transactional
+    public int backfill(int batchSize) {
+        List<Long> codes = productRepository.findCodesWithoutChange(Limit.of(batchSize));
+        if (codes.isEmpty()) {
+            return 0;
+        }
+        long sequence = nextSequences(codes.size());
+        Instant now = Instant.now();
+        List<ProductChange> changes = new ArrayList<>(codes.size());
+        for (Long code : codes) {
+            ProductChange change = new ProductChange(code);
+            change.setSequence(sequence++);
+            change.setChangedAt(now);
+            changes.add(change);
+        }
+        productChangeRepository.saveAll(changes);
+        return changes.size();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${product.changes.prune-interval-ms:3600000}",
+            initialDelayString = "${product.changes.prune-interval-ms:3600000}")
+    @Transactional
+    public void pruneTombstones() {
+        // Locked first, a delete committing meanwhile gets a sequence above whatever is pruned here
+        ProductChangeSequence sequence = lockSequence();
+        Long through = productChangeRepository.findLastDeletedSequenceBefore(Instant.now().minus(tombstoneRetention));
+        if (through == null) {
+            return;
+        }
+        int removed = productChangeRepository.deleteTombstonesThrough(through);
+        sequence.setPrunedThrough(Math.max(sequence.getPrunedThrough(), through));
+        log.info("Product change feed pruned {} tombstones through sequence {}", removed, through);
+    }
+
+    // First of count consecutive sequence numbers; the row stays locked until the transaction ends
+    private long nextSequences(int count) {
+        ProductChangeSequence sequence = lockSequence();
+        long first = sequence.getLastSequence() + 1;
+        sequence.setLastSequence(sequence.getLastSequence() + count);
+        return first;
+    }
+
+    private ProductChangeSequence lockSequence() {
+        return productChangeSequenceRepository.lockById(ProductChangeSequence.ID)
+                .orElseGet(() -> productChangeSequenceRepository.saveAndFlush(new ProductChangeSequence(ProductChangeSequence.ID)));
+    }
+}
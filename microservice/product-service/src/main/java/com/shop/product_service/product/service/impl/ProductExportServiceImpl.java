@@ -0,0 +1,90 @@
+package com.shop.product_service.product.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.shop.product_service.category.snapshot.CategorySnapshot;
+import com.shop.product_service.category.snapshot.CategorySnapshotHolder;
+import com.shop.product_service.product.dto.response.ProductExportLine;
+import com.shop.product_service.product.repository.ProductRepository;
+import com.shop.product_service.product.repository.projection.ProductExportView;
+import com.shop.product_service.product.service.ProductExportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ProductExportServiceImpl implements ProductExportService {
+
+    private final ProductRepository productRepository;
+    private final CategorySnapshotHolder categorySnapshotHolder;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportProducts(OutputStream out) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        // Resolve the snapshot first: a streaming result set keeps the connection busy until fully read
+        CategorySnapshot snapshot = categorySnapshotHolder.get();
+        ObjectWriter writer = objectMapper.writerFor(ProductExportLine.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        try (Stream<ProductExportView> rows = productRepository.streamAllForExport();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            Iterator<ProductExportView> iterator = rows.iterator();
+            ProductExportLine current = null;
+            Long currentId = null;
+            while (iterator.hasNext()) {
+                ProductExportView row = iterator.next();
+                if (!row.getId().equals(currentId)) {
+                    if (current != null) {
+                        writeLine(writer, generator, current, snapshot);
+                        count++;
+                    }
+                    current = toLine(row);
+                    currentId = row.getId();
+                }
+                if (row.getCategoryCode() != null) {
+                    current.getCategoryCodes().add(row.getCategoryCode());
+                }
+            }
+            if (current != null) {
+                writeLine(writer, generator, current, snapshot);
+                count++;
+            }
+            generator.flush();
+        }
+        log.info("Product export completed - products: {}, snapshot v{}, took {} ms",
+                count, snapshot.getVersion(), System.currentTimeMillis() - startedAt);
+        return count;
+    }
+
+    private void writeLine(ObjectWriter writer, JsonGenerator generator, ProductExportLine line,
+                           CategorySnapshot snapshot) throws IOException {
+        line.getCategoryCodes().forEach(code -> line.getAncestorCategoryCodes().addAll(snapshot.getAncestorCodes(code)));
+        writer.writeValue(generator, line);
+        generator.writeRaw('\n');
+    }
+
+    private ProductExportLine toLine(ProductExportView row) {
+        ProductExportLine line = new ProductExportLine();
+        line.setCode(row.getCode());
+        line.setName(row.getName());
+        line.setTitle(row.getTitle());
+        line.setDescription(row.getDescription());
+        line.setBrand(row.getBrand());
+        line.setPrice(row.getPrice());
+        line.setImageUrl(row.getImageUrl());
+        return line;
+    }
+}
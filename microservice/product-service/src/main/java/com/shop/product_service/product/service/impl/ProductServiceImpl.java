@@ -1,18 +1,31 @@
 package com.shop.product_service.product.service.impl;
 
+import com.shop.product_service.cache.services.TieredCacheService;
+import com.shop.product_service.category.event.CategoryChangedEvent;
 import com.shop.product_service.category.model.CategoryModel;
 import com.shop.product_service.category.repository.CategoryRepository;
+import com.shop.product_service.product.cursor.ProductChangeCursorCodec;
+import com.shop.product_service.product.cursor.ProductCursorCodec;
 import com.shop.product_service.product.dto.ProductDto;
+import com.shop.product_service.product.dto.response.ProductChangeResponse;
+import com.shop.product_service.product.dto.response.ProductChangesResponse;
+import com.shop.product_service.product.dto.response.ProductCursorResponse;
 import com.shop.product_service.product.dto.response.ProductDtoResponse;
 import com.shop.product_service.product.dto.response.ProductPageableResponse;
+import com.shop.product_service.product.event.ProductChangedEvent;
+import com.shop.product_service.product.model.ProductChange;
+import com.shop.product_service.product.model.ProductChangeSequence;
 import com.shop.product_service.product.model.ProductModel;
 import com.shop.product_service.product.populator.ProductPopulator;
+import com.shop.product_service.product.repository.ProductChangeRepository;
+import com.shop.product_service.product.repository.ProductChangeSequenceRepository;
 import com.shop.product_service.product.repository.ProductRepository;
+import com.shop.product_service.product.service.ProductChangeLogService;
 import com.shop.product_service.product.service.ProductService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
@@ -26,9 +39,18 @@ import java.util.stream.Collectors;
 public class ProductServiceImpl implements ProductService {
 
     private final ProductRepository productRepository;
+    private final ProductChangeRepository productChangeRepository;
+    private final ProductChangeSequenceRepository productChangeSequenceRepository;
+    private final ProductChangeLogService productChangeLogService;
     private final CategoryRepository categoryRepository;
     private final ProductPopulator productMapper;
-
+    private final ApplicationEventPublisher eventPublisher;
+    private final TieredCacheService tieredCacheService;
+    private final ProductCursorCodec productCursorCodec;
+    private final ProductChangeCursorCodec productChangeCursorCodec;
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final int MAX_CHANGES = 1000;
+    private static final int MAX_PAGE_SIZE = 1000;
 
     @Override
     public List<ProductDtoResponse> getAllProducts() {
@@ -49,18 +71,48 @@ public class ProductServiceImpl implements ProductService {
     @Override
     public ProductDtoResponse getProductByCode(Long code) {
         try {
-            ProductModel product = productRepository.findByCode(code)
-                    .orElseThrow(() -> {
-                        log.warn("Product not found with code: {}", code);
-                        return new RuntimeException("Product not found with code: " + code);
-                    });
-            return productMapper.toDtoResponse(product);
+            return tieredCacheService.get(TieredCacheService.PRODUCTS, String.valueOf(code), ProductDtoResponse.class, () -> {
+                ProductModel product = productRepository.findByCode(code)
+                        .orElseThrow(() -> {
+                            log.warn("Product not found with code: {}", code);
+                            return new RuntimeException("Product not found with code: " + code);
+                        });
+                return productMapper.toDtoResponse(product);
+            });
         } catch (Exception ex) {
             log.error("Error while getting product by code: {}", code, ex);
             throw new RuntimeException("Error while getting product", ex);
         }
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductDtoResponse> getProductsByCodes(Collection<Long> codes) {
+        if (CollectionUtils.isEmpty(codes)) {
+            return Collections.emptyList();
+        }
+        Set<Long> uniqueCodes = codes.stream().filter(Objects::nonNull).collect(Collectors.toCollection(LinkedHashSet::new));
+        if (uniqueCodes.size() > MAX_BATCH_SIZE) {
+            log.warn("getProductsByCodes called with {} codes, limit is {}", uniqueCodes.size(), MAX_BATCH_SIZE);
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " product codes can be requested at once");
+        }
+        try {
+            Map<Long, ProductModel> byCode = productRepository.findByCodeIn(uniqueCodes).stream()
+                    .collect(Collectors.toMap(ProductModel::getCode, p -> p));
+            // Keep request order, silently skip unknown codes
+            List<ProductDtoResponse> products = uniqueCodes.stream()
+                    .map(byCode::get)
+                    .filter(Objects::nonNull)
+                    .map(productMapper::toDtoResponse)
+                    .collect(Collectors.toList());
+            log.debug("Batch product lookup - requested: {}, found: {}", uniqueCodes.size(), products.size());
+            return products;
+        } catch (Exception ex) {
+            log.error("Failed to fetch products by codes", ex);
+            throw new RuntimeException("Could not fetch products", ex);
+        }
+    }
+
     @Override
     @Transactional
     public ProductDtoResponse createProduct(ProductDto productDto) {
@@ -97,6 +149,13 @@ public class ProductServiceImpl implements ProductService {
             }
 
             ProductModel saved = productRepository.save(product);
+            // Re-created after a delete: replaces the tombstone
+            productChangeLogService.record(saved.getCode(), false);
+            eventPublisher.publishEvent(new ProductChangedEvent(saved.getCode(), false));
+            if (!saved.getCategories().isEmpty()) {
+                eventPublisher.publishEvent(CategoryChangedEvent.productLinks(saved.getCode(), categoryCodes(saved),
+                        "product " + saved.getCode() + " created"));
+            }
             return productMapper.toDtoResponse(saved);
         } catch (Exception ex) {
             log.error("Failed to create product", ex);
@@ -156,9 +215,15 @@ public class ProductServiceImpl implements ProductService {
                 if (!toRemove.isEmpty()) {
                     product.getCategories().removeIf(c -> toRemove.contains(c.getCode()));
                 }
+                if (!toAdd.isEmpty() || !toRemove.isEmpty()) {
+                    eventPublisher.publishEvent(CategoryChangedEvent.productLinks(product.getCode(), categoryCodes(product),
+                            "product " + product.getCode() + " updated"));
+                }
             }
 
             ProductModel saved = productRepository.save(product);
+            productChangeLogService.record(saved.getCode(), false);
+            eventPublisher.publishEvent(new ProductChangedEvent(saved.getCode(), false));
             return productMapper.toDtoResponse(saved);
         }catch (Exception ex) {
             log.error("Failed to update product with code {}", productDto.getCode(), ex);
@@ -179,6 +244,9 @@ public class ProductServiceImpl implements ProductService {
                 return false;
             }
             productRepository.deleteByCode(code);
+            productChangeLogService.record(code, true);
+            eventPublisher.publishEvent(new ProductChangedEvent(code, true));
+            eventPublisher.publishEvent(CategoryChangedEvent.productLinks(code, Set.of(), "product " + code + " deleted"));
             return true;
         } catch (Exception ex) {
             log.error("Failed to delete product with code {}", code, ex);
@@ -196,4 +264,106 @@ public class ProductServiceImpl implements ProductService {
                 .products(productModelPage.stream().map(productMapper::toDtoResponse).toList())
                 .build();
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProductCursorResponse getProductsAfter(String cursor, int limit, String order, String sort) {
+        if (limit < 1) {
+            log.warn("getProductsAfter called with limit {}", limit);
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+        int size = Math.min(limit, MAX_PAGE_SIZE);
+        String sortKey;
+        Sort.Direction direction;
+        KeysetScrollPosition position;
+        if (cursor == null || cursor.isBlank()) {
+            sortKey = productCursorCodec.validateSort(sort);
+            direction = "DESC".equalsIgnoreCase(order) ? Sort.Direction.DESC : Sort.Direction.ASC;
+            position = ScrollPosition.keyset();
+        } else {
+            ProductCursorCodec.Decoded decoded = productCursorCodec.decode(cursor);
+            sortKey = decoded.getSort();
+            direction = decoded.getDirection();
+            position = decoded.getPosition();
+        }
+
+        Sort sortQuery = "id".equals(sortKey)
+                ? Sort.by(direction, "id")
+                : Sort.by(direction, sortKey).and(Sort.by(direction, "id"));
+        Window<ProductModel> window = productRepository.findBy(position, sortQuery, Limit.of(size));
+
+        String nextCursor = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            nextCursor = productCursorCodec.encode(sortKey, direction,
+                    (KeysetScrollPosition) window.positionAt(window.size() - 1));
+        }
+        return ProductCursorResponse.builder()
+                .products(window.stream().map(productMapper::toDtoResponse).toList())
+                .nextCursor(nextCursor)
+                .hasNext(nextCursor != null)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProductChangesResponse getChangesSince(String since, int limit) {
+        if (limit < 1) {
+            log.warn("getChangesSince called with limit {}", limit);
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+        ProductChangeCursorCodec.Position position = productChangeCursorCodec.decode(since);
+        int size = Math.min(limit, MAX_CHANGES);
+
+        // Sequence numbers are handed out in commit order, anything past the cursor that is not visible yet comes later
+        ProductChangeSequence sequence = productChangeSequenceRepository.findById(ProductChangeSequence.ID)
+                .orElse(new ProductChangeSequence(ProductChangeSequence.ID));
+        if (position.getSequence() > 0 && position.getSequence() < sequence.getPrunedThrough()) {
+            log.warn("Product changes since {} - tombstones pruned through {}, consumer must rebuild",
+                    position.getSequence(), sequence.getPrunedThrough());
+            return ProductChangesResponse.builder()
+                    .changes(List.of())
+                    .nextCursor(productChangeCursorCodec.encode(
+                            new ProductChangeCursorCodec.Position(sequence.getLastSequence())))
+                    .reset(true)
+                    .build();
+        }
+
+        List<ProductChange> rows = productChangeRepository.findBySequenceGreaterThanOrderBySequence(
+                position.getSequence(), Limit.of(size + 1));
+        boolean hasMore = rows.size() > size;
+        List<ProductChange> page = hasMore ? rows.subList(0, size) : rows;
+        Map<Long, ProductModel> products = productRepository.findByCodeIn(page.stream()
+                        .filter(change -> !change.isDeleted())
+                        .map(ProductChange::getCode)
+                        .toList())
+                .stream()
+                .collect(Collectors.toMap(ProductModel::getCode, p -> p));
+        List<ProductChangeResponse> changes = page.stream()
+                .map(change -> {
+                    ProductModel product = products.get(change.getCode());
+                    return ProductChangeResponse.builder()
+                            .code(change.getCode())
+                            .deleted(product == null)
+                            .modifiedAt(change.getChangedAt())
+                            .product(product == null ? null : productMapper.toDtoResponse(product))
+                            .build();
+                })
+                .toList();
+
+        String nextCursor = page.isEmpty()
+                ? productChangeCursorCodec.encode(position)
+                : productChangeCursorCodec.encode(new ProductChangeCursorCodec.Position(page.get(page.size() - 1).getSequence()));
+        log.debug("Product changes since {} - returned: {}, hasMore: {}", position.getSequence(), changes.size(), hasMore);
+        return ProductChangesResponse.builder()
+                .changes(changes)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    private Set<Long> categoryCodes(ProductModel product) {
+        return product.getCategories().stream()
+                .map(CategoryModel::getCode)
+                .collect(Collectors.toSet());
+    }
 }
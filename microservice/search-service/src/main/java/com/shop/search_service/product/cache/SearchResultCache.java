@@ -0,0 +1,206 @@
+package com.shop.search_service.product.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shop.search_service.product.dto.response.ProductSearchResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of page-mode search results.
+ * Keys carry the index generation, so any write bumps the generation and makes earlier entries unreachable.
+ * Every replica caches, so a bump also increments a shared counter in Redis and publishes it; a replica that sees
+ * the counter move, from a message or from re-reading it, drops its entries the same way.
+ * Concurrent misses on the same key wait for a single load.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SearchResultCache {
+
+    private final MeterRegistry meterRegistry;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final AtomicLong generation = new AtomicLong();
+    // Last value of the shared counter this replica has caught up with
+    private long sharedGeneration = -1;
+    private Cache<String, Entry> cache;
+    private Timer loadTimer;
+    private Counter savedTime;
+
+    @Value("${search.cache.max-size:5000}")
+    private long maxSize;
+
+    @Value("${search.cache.ttl:PT10M}")
+    private Duration ttl;
+
+    @Value("${search.cache.generation-channel}")
+    private String generationChannel;
+
+    @Value("${spring.application.name}")
+    private String serviceName;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "search.results");
+        loadTimer = Timer.builder("search.cache.load").register(meterRegistry);
+        // Sum of the original load time of every hit: the Elasticsearch latency the cache saved
+        savedTime = Counter.builder("search.cache.saved").baseUnit("seconds").register(meterRegistry);
+        Gauge.builder("search.cache.generation", generation, AtomicLong::get).register(meterRegistry);
+    }
+
+    public ProductSearchResponse get(String key, Supplier<ProductSearchResponse> loader) {
+        String versionedKey = generation.get() + "|" + key;
+        boolean[] loaded = {false};
+        Entry entry = cache.get(versionedKey, k -> {
+            loaded[0] = true;
+            long start = System.nanoTime();
+            ProductSearchResponse response = loader.get();
+            long took = System.nanoTime() - start;
+            loadTimer.record(took, TimeUnit.NANOSECONDS);
+            return new Entry(response, took);
+        });
+        if (!loaded[0]) {
+            savedTime.increment(entry.getLoadNanos() / 1e9);
+        }
+        return entry.getResponse();
+    }
+
+    /**
+     * Bulk variant of {@link #get}: the loader receives only the keys that missed, in one call,
+     * and may leave out keys it could not load (those are not cached).
+     */
+    public Map<String, ProductSearchResponse> getAll(Collection<String> keys,
+                                                     Function<List<String>, Map<String, ProductSearchResponse>> loader) {
+        String prefix = generation.get() + "|";
+        Set<String> loaded = new HashSet<>();
+        Map<String, Entry> entries = cache.getAll(keys.stream().map(key -> prefix + key).toList(), missing -> {
+            List<String> missingKeys = missing.stream().map(key -> key.substring(prefix.length())).toList();
+            long start = System.nanoTime();
+            Map<String, ProductSearchResponse> responses = loader.apply(missingKeys);
+            long took = System.nanoTime() - start;
+            Map<String, Entry> result = new HashMap<>();
+            if (!responses.isEmpty()) {
+                // One round-trip for all of them, attribute an even share to each
+                long share = took / responses.size();
+                responses.forEach((key, response) -> {
+                    loadTimer.record(share, TimeUnit.NANOSECONDS);
+                    loaded.add(key);
+                    result.put(prefix + key, new Entry(response, share));
+                });
+            }
+            return result;
+        });
+        Map<String, ProductSearchResponse> responses = new HashMap<>();
+        entries.forEach((versionedKey, entry) -> {
+            String key = versionedKey.substring(prefix.length());
+            if (!loaded.contains(key)) {
+                savedTime.increment(entry.getLoadNanos() / 1e9);
+            }
+            responses.put(key, entry.getResponse());
+        });
+        return responses;
+    }
+
+    public void bumpGeneration(String reason) {
+        // Shared counter first: a bump by another replica that ordered before it is covered by the local one below
+        Long shared = null;
+        try {
+            shared = stringRedisTemplate.opsForValue().increment(generationKey());
+        } catch (Exception e) {
+            log.warn("SEARCH: Shared result cache generation bump failed, other replicas serve cached results until ttl: {}",
+                    e.getMessage());
+        }
+        long next;
+        synchronized (this) {
+            if (shared != null) {
+                sharedGeneration = shared;
+            }
+            next = advance();
+        }
+        if (shared != null) {
+            try {
+                stringRedisTemplate.convertAndSend(generationChannel, String.valueOf(shared));
+            } catch (Exception e) {
+                log.warn("SEARCH: Result cache generation {} not published, replicas pick it up on their next check: {}",
+                        shared, e.getMessage());
+            }
+        }
+        log.debug("SEARCH: Result cache generation {} ({})", next, reason);
+    }
+
+    /**
+     * Another replica bumped the shared counter, or it was found changed on a check.
+     */
+    public void onSharedGeneration(long shared) {
+        long next;
+        synchronized (this) {
+            if (shared == sharedGeneration) {
+                return;
+            }
+            sharedGeneration = shared;
+            next = advance();
+        }
+        log.debug("SEARCH: Result cache generation {} (shared {})", next, shared);
+    }
+
+    // Catches bumps whose message was lost while the subscription was down
+    @Scheduled(fixedDelayString = "${search.cache.generation-check-interval-ms:5000}")
+    void checkSharedGeneration() {
+        try {
+            String shared = stringRedisTemplate.opsForValue().get(generationKey());
+            onSharedGeneration(shared == null ? 0 : Long.parseLong(shared));
+        } catch (Exception e) {
+            log.debug("SEARCH: Shared result cache generation check failed: {}", e.getMessage());
+        }
+    }
+
+    private long advance() {
+        long next = generation.incrementAndGet();
+        // Old keys can no longer be hit, drop them now instead of waiting for eviction
+        cache.invalidateAll();
+        return next;
+    }
+
+    private String generationKey() {
+        return serviceName + ":result-cache-generation";
+    }
+
+    public static String key(String keyword, Long categoryCode, List<String> brands,
+                             Double minPrice, Double maxPrice, int page, int size) {
+        String normalizedKeyword = keyword == null ? "" : keyword.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        String normalizedBrands = brands == null ? "" : String.join(",", brands.stream().sorted().toList());
+        return normalizedKeyword + "|" + categoryCode + "|" + normalizedBrands + "|" + minPrice + "|" + maxPrice
+                + "|" + page + "|" + size;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Entry {
+        private final ProductSearchResponse response;
+        private final long loadNanos;
+    }
+}
@@ -0,0 +1,30 @@
+package com.shop.search_service.product.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Applies result cache generation bumps published by other search-service replicas.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SearchResultCacheSubscriber implements MessageListener {
+
+    private final SearchResultCache searchResultCache;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            searchResultCache.onSharedGeneration(Long.parseLong(body));
+        } catch (NumberFormatException e) {
+            log.warn("SEARCH: Ignoring malformed result cache generation message: {}", body);
+        }
+    }
+}
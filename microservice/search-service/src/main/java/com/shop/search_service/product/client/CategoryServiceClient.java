@@ -5,10 +5,15 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @FeignClient(value = "product-service", contextId = "categoryServiceClient", path = "/api/categories")
 public interface CategoryServiceClient {
 
     @GetMapping("/{code}/descendant-codes")
     List<Long> getDescendantCodes(@PathVariable("code") Long code);
+
+    @GetMapping("/parent-codes")
+    Map<Long, Set<Long>> getParentCodes();
 }
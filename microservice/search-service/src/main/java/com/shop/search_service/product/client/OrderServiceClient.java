@@ -0,0 +1,14 @@
+package com.shop.search_service.product.client;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+
+import java.util.Map;
+
+@FeignClient(value = "order-service", contextId = "orderServiceClient", path = "/api/orders")
+public interface OrderServiceClient {
+
+    // Rolling units sold per product code, products without recent sales are left out
+    @GetMapping("/sales/popularity")
+    Map<Long, Long> getSalesSnapshot();
+}
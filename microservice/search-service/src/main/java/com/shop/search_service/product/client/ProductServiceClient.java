@@ -1,6 +1,9 @@
 package com.shop.search_service.product.client;
 
+import com.shop.search_service.product.client.response.ProductChangesResponse;
+import com.shop.search_service.product.client.response.ProductCursorResponse;
 import com.shop.search_service.product.client.response.ProductPageableResponse;
+import feign.Response;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -13,4 +16,18 @@ public interface ProductServiceClient {
                                         @RequestParam(value = "limit") Integer limit,
                                         @RequestParam(value = "order") String order,
                                         @RequestParam(value = "sort") String sort);
+
+    @GetMapping("/scroll")
+    ProductCursorResponse scrollProducts(@RequestParam(value = "cursor", required = false) String cursor,
+                                         @RequestParam(value = "limit") Integer limit,
+                                         @RequestParam(value = "order") String order,
+                                         @RequestParam(value = "sort") String sort);
+
+    @GetMapping("/changes")
+    ProductChangesResponse getChanges(@RequestParam(value = "since", required = false) String since,
+                                      @RequestParam(value = "limit") Integer limit);
+
+    // NDJSON stream, the caller must read and close the body
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    Response exportProducts();
 }
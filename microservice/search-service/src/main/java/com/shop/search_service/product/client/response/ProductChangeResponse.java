@@ -0,0 +1,13 @@
+package com.shop.search_service.product.client.response;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+public class ProductChangeResponse {
+    private Long code;
+    private boolean deleted;
+    private Instant modifiedAt;
+    private ProductDtoResponse product;
+}
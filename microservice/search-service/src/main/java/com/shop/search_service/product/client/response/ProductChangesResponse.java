@@ -0,0 +1,13 @@
+package com.shop.search_service.product.client.response;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ProductChangesResponse {
+    private List<ProductChangeResponse> changes;
+    private String nextCursor;
+    private boolean hasMore;
+    private boolean reset;
+}
@@ -0,0 +1,12 @@
+package com.shop.search_service.product.client.response;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ProductCursorResponse {
+    private List<ProductDtoResponse> products;
+    private String nextCursor;
+    private boolean hasNext;
+}
@@ -0,0 +1,18 @@
+package com.shop.search_service.product.client.response;
+
+import lombok.Data;
+
+import java.util.Set;
+
+@Data
+public class ProductExportLine {
+    private Long code;
+    private String name;
+    private String title;
+    private String description;
+    private String brand;
+    private double price;
+    private String imageUrl;
+    private Set<Long> categoryCodes;
+    private Set<Long> ancestorCategoryCodes;
+}
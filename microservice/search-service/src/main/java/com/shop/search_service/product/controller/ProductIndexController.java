@@ -1,12 +1,19 @@
 package com.shop.search_service.product.controller;
 
+import com.shop.search_service.product.dto.request.ProductSearchRequest;
+import com.shop.search_service.product.dto.response.IndexJobResponse;
+import com.shop.search_service.product.dto.response.MultiSearchItemResponse;
 import com.shop.search_service.product.dto.response.ProductSearchResponse;
+import com.shop.search_service.product.dto.response.ProductSuggestionResponse;
 import com.shop.search_service.product.model.ProductDocument;
 import com.shop.search_service.product.service.ProductIndexService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping(value = "/api/search/products")
 @RequiredArgsConstructor
@@ -25,14 +32,65 @@ public class ProductIndexController {
        return productIndexService.indexAll();
     }
 
+    @GetMapping("/indexAll/status")
+    public IndexJobResponse getIndexJob() {
+        return productIndexService.getIndexJob();
+    }
+
+    @PostMapping("/reindex/category/{code}")
+    public String reindexCategory(@PathVariable("code") Long code) {
+        log.info("Request received: POST /api/search/products/reindex/category/{}", code);
+        return productIndexService.reindexCategory(code);
+    }
+
+    @PostMapping("/popularity")
+    public String updatePopularity(@RequestBody Map<Long, Long> unitsSold) {
+        log.info("Request received: POST /api/search/products/popularity - products: {}", unitsSold.size());
+        return productIndexService.updatePopularity(unitsSold);
+    }
+
     @GetMapping("/search")
     public ProductSearchResponse searchProducts(
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) Long categoryCode,
+            @RequestParam(required = false) List<String> brand,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
-        log.info("Request received: GET /api/search/products/search - keyword: {}, categoryCode: {}, page: {}, size: {}",
-                keyword, categoryCode, page, size);
-        return productIndexService.search(keyword, categoryCode, page, size);
+        log.info("Request received: GET /api/search/products/search - keyword: {}, categoryCode: {}, brand: {}, page: {}, size: {}",
+                keyword, categoryCode, brand, page, size);
+        return productIndexService.search(keyword, categoryCode, brand, minPrice, maxPrice, page, size);
+    }
+
+    @PostMapping("/msearch")
+    public List<MultiSearchItemResponse> multiSearch(@RequestBody List<ProductSearchRequest> searches) {
+        log.info("Request received: POST /api/search/products/msearch - searches: {}", searches.size());
+        return productIndexService.multiSearch(searches);
+    }
+
+    @GetMapping("/similar/{code}")
+    public List<ProductDocument> similar(
+            @PathVariable("code") Long code,
+            @RequestParam(defaultValue = "10") int size) {
+        return productIndexService.similar(code, size);
+    }
+
+    @GetMapping("/suggest")
+    public List<ProductSuggestionResponse> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "5") int size) {
+        return productIndexService.suggest(prefix, size);
+    }
+
+    @GetMapping("/search/cursor")
+    public ProductSearchResponse searchProductsAfter(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) Long categoryCode,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor) {
+        log.info("Request received: GET /api/search/products/search/cursor - keyword: {}, categoryCode: {}, size: {}",
+                keyword, categoryCode, size);
+        return productIndexService.searchAfter(keyword, categoryCode, size, cursor);
     }
 }
@@ -0,0 +1,91 @@
+package com.shop.search_service.product.cursor;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Encodes search_after positions as opaque, URL-safe continuation tokens.
+ * The token carries the point-in-time id and the original filters so follow-up pages run the same query.
+ */
+@Component
+@RequiredArgsConstructor
+public class SearchCursorCodec {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Page size for a cursor request: at least one, larger requests are capped.
+     */
+    public static int pageSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    public String encode(SearchCursor cursor) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(cursor));
+        } catch (Exception ex) {
+            throw new IllegalStateException("Could not encode search cursor", ex);
+        }
+    }
+
+    public SearchCursor decode(String token) {
+        try {
+            SearchCursor cursor = objectMapper.readValue(Base64.getUrlDecoder().decode(token), SearchCursor.class);
+            if (cursor.getPitId() == null || cursor.getSortValues() == null) {
+                throw new IllegalArgumentException("Invalid search cursor");
+            }
+            return cursor;
+        } catch (IllegalArgumentException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IllegalArgumentException("Invalid search cursor", ex);
+        }
+    }
+
+    public static List<Object> toRaw(List<FieldValue> sortValues) {
+        return sortValues.stream().map(FieldValue::_get).toList();
+    }
+
+    public static List<FieldValue> toFieldValues(List<Object> sortValues) {
+        return sortValues.stream().map(SearchCursorCodec::toFieldValue).toList();
+    }
+
+    private static FieldValue toFieldValue(Object value) {
+        if (value == null) {
+            return FieldValue.NULL;
+        }
+        if (value instanceof Integer || value instanceof Long) {
+            return FieldValue.of(((Number) value).longValue());
+        }
+        if (value instanceof Number) {
+            return FieldValue.of(((Number) value).doubleValue());
+        }
+        if (value instanceof Boolean) {
+            return FieldValue.of((Boolean) value);
+        }
+        return FieldValue.of(value.toString());
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SearchCursor {
+        private String pitId;
+        private String keyword;
+        private Long categoryCode;
+        private List<Object> sortValues;
+    }
+}
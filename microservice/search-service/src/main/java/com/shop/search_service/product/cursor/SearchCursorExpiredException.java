@@ -0,0 +1,12 @@
+package com.shop.search_service.product.cursor;
+
+/**
+ * The point in time behind a search cursor is gone (keep-alive passed or the cluster restarted).
+ * The client has to start the scroll again without a cursor.
+ */
+public class SearchCursorExpiredException extends RuntimeException {
+
+    public SearchCursorExpiredException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,27 @@
+package com.shop.search_service.product.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page-mode search, same parameters as GET /search.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchRequest {
+    private String keyword;
+    private Long categoryCode;
+    private List<String> brand;
+    private Double minPrice;
+    private Double maxPrice;
+    @Builder.Default
+    private int page = 0;
+    @Builder.Default
+    private int size = 20;
+}
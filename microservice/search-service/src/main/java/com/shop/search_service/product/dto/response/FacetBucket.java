@@ -0,0 +1,18 @@
+package com.shop.search_service.product.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetBucket {
+    private String key;
+    // Only set on price buckets
+    private Double from;
+    private Double to;
+    private long count;
+}
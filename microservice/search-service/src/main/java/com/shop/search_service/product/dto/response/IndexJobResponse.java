@@ -0,0 +1,28 @@
+package com.shop.search_service.product.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IndexJobResponse {
+    private String jobId;
+    private String index;
+    private String status;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private long documentsRead;
+    private long documentsIndexed;
+    private long documentsFailed;
+    private long bulkRequests;
+    private int pendingRequests;
+    private double documentsPerSecond;
+    private List<String> errors;
+}
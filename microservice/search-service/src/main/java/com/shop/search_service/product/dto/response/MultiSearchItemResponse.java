@@ -0,0 +1,24 @@
+package com.shop.search_service.product.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MultiSearchItemResponse {
+    // Exactly one of the two is set
+    private ProductSearchResponse result;
+    private String error;
+
+    public static MultiSearchItemResponse ok(ProductSearchResponse result) {
+        return MultiSearchItemResponse.builder().result(result).build();
+    }
+
+    public static MultiSearchItemResponse failed(String error) {
+        return MultiSearchItemResponse.builder().error(error).build();
+    }
+}
@@ -0,0 +1,18 @@
+package com.shop.search_service.product.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFacetsResponse {
+    private List<FacetBucket> brands;
+    private List<FacetBucket> categories;
+    private List<FacetBucket> priceRanges;
+}
@@ -17,4 +17,8 @@ public class ProductSearchResponse {
     private Integer currentPage;
     private Integer totalPage;
     private Long totalElements;
+    // Opaque token for the next page in cursor mode, null on the last page
+    private String nextCursor;
+    // Counts for brand, category and price filters; selected facets are applied as post-filters
+    private ProductFacetsResponse facets;
 }
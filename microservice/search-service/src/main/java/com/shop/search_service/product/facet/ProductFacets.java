@@ -0,0 +1,161 @@
+package com.shop.search_service.product.facet;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.AggregationRange;
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch._types.query_dsl.QueryBuilders;
+import com.shop.search_service.product.dto.response.FacetBucket;
+import com.shop.search_service.product.dto.response.ProductFacetsResponse;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Facet aggregations and post-filters for product search.
+ * Selected facets go into post_filter so hits are narrowed while each facet is counted
+ * with every other selection applied but not its own (multi-select counts).
+ */
+@Component
+public class ProductFacets {
+
+    public static final String BRAND_FIELD = "brand.keyword";
+    public static final String CATEGORY_FIELD = "categoryCodes";
+    public static final String PRICE_FIELD = "price";
+
+    private static final String BRANDS = "brands";
+    private static final String CATEGORIES = "categories";
+    private static final String PRICE_RANGES = "priceRanges";
+    private static final String VALUES = "values";
+
+    @Value("${search.facets.size:20}")
+    private int facetSize;
+
+    // Comma separated "from:to" pairs, either bound may be empty
+    @Value("${search.facets.price-ranges:0:50,50:100,100:250,250:500,500:}")
+    private String priceRanges;
+
+    private List<AggregationRange> ranges;
+
+    public Optional<Query> postFilter(Selection selection) {
+        List<Query> filters = new ArrayList<>();
+        brandFilter(selection).ifPresent(filters::add);
+        priceFilter(selection).ifPresent(filters::add);
+        return filters.isEmpty() ? Optional.empty() : Optional.of(and(filters));
+    }
+
+    public Map<String, Aggregation> aggregations(Selection selection) {
+        Optional<Query> brand = brandFilter(selection);
+        Optional<Query> price = priceFilter(selection);
+
+        Map<String, Aggregation> aggregations = new LinkedHashMap<>();
+        aggregations.put(BRANDS, filtered(price.stream().toList(),
+                Aggregation.of(a -> a.terms(t -> t.field(BRAND_FIELD).size(facetSize)))));
+        aggregations.put(CATEGORIES, filtered(concat(brand, price),
+                Aggregation.of(a -> a.terms(t -> t.field(CATEGORY_FIELD).size(facetSize)))));
+        aggregations.put(PRICE_RANGES, filtered(brand.stream().toList(),
+                Aggregation.of(a -> a.range(r -> r.field(PRICE_FIELD).ranges(getRanges())))));
+        return aggregations;
+    }
+
+    public ProductFacetsResponse read(Map<String, Aggregate> aggregations) {
+        return ProductFacetsResponse.builder()
+                .brands(terms(values(aggregations, BRANDS)))
+                .categories(terms(values(aggregations, CATEGORIES)))
+                .priceRanges(prices(values(aggregations, PRICE_RANGES)))
+                .build();
+    }
+
+    // Unmapped fields (an empty generation, a missing field) come back as umterms instead of sterms/lterms
+    private List<FacetBucket> terms(Aggregate values) {
+        if (values.isSterms()) {
+            return values.sterms().buckets().array().stream()
+                    .map(b -> FacetBucket.builder().key(b.key().stringValue()).count(b.docCount()).build())
+                    .toList();
+        }
+        if (values.isLterms()) {
+            return values.lterms().buckets().array().stream()
+                    .map(b -> FacetBucket.builder().key(String.valueOf(b.key())).count(b.docCount()).build())
+                    .toList();
+        }
+        return List.of();
+    }
+
+    private List<FacetBucket> prices(Aggregate values) {
+        if (!values.isRange()) {
+            return List.of();
+        }
+        return values.range().buckets().array().stream()
+                .map(b -> FacetBucket.builder().key(b.key()).from(b.from()).to(b.to()).count(b.docCount()).build())
+                .toList();
+    }
+
+    private Aggregate values(Map<String, Aggregate> aggregations, String name) {
+        return aggregations.get(name).filter().aggregations().get(VALUES);
+    }
+
+    private Aggregation filtered(List<Query> filters, Aggregation values) {
+        Query filter = filters.isEmpty() ? QueryBuilders.matchAll().build()._toQuery() : and(filters);
+        return Aggregation.of(a -> a.filter(filter).aggregations(VALUES, values));
+    }
+
+    private Optional<Query> brandFilter(Selection selection) {
+        if (selection.getBrands() == null || selection.getBrands().isEmpty()) {
+            return Optional.empty();
+        }
+        List<FieldValue> values = selection.getBrands().stream().map(FieldValue::of).toList();
+        return Optional.of(QueryBuilders.terms().field(BRAND_FIELD).terms(t -> t.value(values)).build()._toQuery());
+    }
+
+    private Optional<Query> priceFilter(Selection selection) {
+        if (selection.getMinPrice() == null && selection.getMaxPrice() == null) {
+            return Optional.empty();
+        }
+        return Optional.of(QueryBuilders.range(r -> r.number(n -> n
+                .field(PRICE_FIELD)
+                .gte(selection.getMinPrice())
+                // Inclusive, so maxPrice=100 keeps a product priced exactly 100
+                .lte(selection.getMaxPrice()))));
+    }
+
+    private static Query and(List<Query> filters) {
+        return filters.size() == 1 ? filters.get(0) : BoolQuery.of(b -> b.filter(filters))._toQuery();
+    }
+
+    private static List<Query> concat(Optional<Query> first, Optional<Query> second) {
+        List<Query> queries = new ArrayList<>();
+        first.ifPresent(queries::add);
+        second.ifPresent(queries::add);
+        return queries;
+    }
+
+    private List<AggregationRange> getRanges() {
+        if (ranges == null) {
+            List<AggregationRange> parsed = new ArrayList<>();
+            for (String range : priceRanges.split(",")) {
+                String[] bounds = range.trim().split(":", -1);
+                Double from = bounds[0].isBlank() ? null : Double.valueOf(bounds[0]);
+                Double to = bounds.length < 2 || bounds[1].isBlank() ? null : Double.valueOf(bounds[1]);
+                parsed.add(AggregationRange.of(r -> r.from(from).to(to)));
+            }
+            ranges = List.copyOf(parsed);
+        }
+        return ranges;
+    }
+
+    /**
+     * Facet values picked by the shopper.
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Selection {
+        private List<String> brands;
+        private Double minPrice;
+        private Double maxPrice;
+    }
+}
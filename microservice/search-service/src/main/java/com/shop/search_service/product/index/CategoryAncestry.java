@@ -0,0 +1,33 @@
+package com.shop.search_service.product.index;
+
+import java.util.*;
+
+/**
+ * Category parent links as served by product-service, used to compute ancestor closures at index time.
+ */
+public class CategoryAncestry {
+
+    private final Map<Long, Set<Long>> parentCodes;
+
+    public CategoryAncestry(Map<Long, Set<Long>> parentCodes) {
+        this.parentCodes = parentCodes != null ? parentCodes : Collections.emptyMap();
+    }
+
+    /**
+     * The given categories plus every category reachable through parent links.
+     */
+    public Set<Long> closureOf(Collection<Long> categoryCodes) {
+        Set<Long> closure = new LinkedHashSet<>();
+        if (categoryCodes == null) {
+            return closure;
+        }
+        Deque<Long> queue = new ArrayDeque<>(categoryCodes);
+        while (!queue.isEmpty()) {
+            Long current = queue.poll();
+            if (closure.add(current)) {
+                queue.addAll(parentCodes.getOrDefault(current, Collections.emptySet()));
+            }
+        }
+        return closure;
+    }
+}
@@ -0,0 +1,350 @@
+package com.shop.search_service.product.index;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shop.search_service.product.model.ProductDocument;
+import com.shop.search_service.product.popularity.ProductPopularity;
+import com.shop.search_service.product.similar.ProductVectorizer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.*;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Product index on local disk (MMapDirectory) for the embedded search mode.
+ * Readers are reopened near-real-time from the writer on a short interval; commits happen less often.
+ * A full rebuild pauses reopening so searches keep seeing the previous catalog until it is complete;
+ * readers are only reopened under the write lock, so a rebuild cannot start between the check and the reopen.
+ */
+@Component
+@ConditionalOnExpression(LuceneProductIndex.ENABLED)
+@RequiredArgsConstructor
+@Slf4j
+public class LuceneProductIndex {
+
+    public static final String ENABLED =
+            "'${search.engine:elasticsearch}' == 'lucene' or ${search.lucene.fallback-enabled:false}";
+
+    public static final String ID = "id";
+    public static final String CODE = "code";
+    public static final String BRAND_KEYWORD = "brand.keyword";
+    public static final String PRICE = "price";
+    public static final String CATEGORY_CODES = "categoryCodes";
+    public static final String ANCESTOR_CATEGORY_CODES = "ancestorCategoryCodes";
+    public static final String SUGGEST = "suggest";
+    // Precomputed popularity multiplier, see ProductPopularity.boost
+    public static final String POPULARITY_BOOST = "popularityBoost";
+    public static final String VECTOR = ProductVectorizer.FIELD;
+    public static final String[] TEXT_FIELDS = {"name", "description", "brand", "title"};
+    private static final String SOURCE = "_source";
+
+    private final ObjectMapper objectMapper;
+    private final ProductPopularity productPopularity;
+    private final Analyzer analyzer = new StandardAnalyzer();
+
+    @Value("${search.lucene.path:./data/lucene/products}")
+    private String path;
+
+    @Value("${search.lucene.refresh-interval-ms:500}")
+    private long refreshIntervalMs;
+
+    @Value("${search.lucene.commit-interval-ms:30000}")
+    private long commitIntervalMs;
+
+    private MMapDirectory directory;
+    private volatile IndexWriter writer;
+    private volatile SearcherManager searcherManager;
+    private volatile boolean rebuilding;
+    // Guards reopening, the writer swap on rollback and the bookkeeping of changes made during a rebuild
+    private final Object writeLock = new Object();
+    // Latest change per id while a rebuild runs, null for a delete
+    private final Map<String, ProductDocument> changedDuringRebuild = new LinkedHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    void open() throws IOException {
+        Path location = Path.of(path);
+        Files.createDirectories(location);
+        directory = new MMapDirectory(location);
+        openWriter();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "lucene-product-index"));
+        scheduler.scheduleWithFixedDelay(this::refresh, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::commit, commitIntervalMs, commitIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("INDEX: Lucene product index opened at {} with {} documents", location.toAbsolutePath(), writer.getDocStats().numDocs);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        scheduler.shutdownNow();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    public Analyzer getAnalyzer() {
+        return analyzer;
+    }
+
+    public interface SearcherCallback<T> {
+        T apply(IndexSearcher searcher) throws IOException;
+    }
+
+    public <T> T search(SearcherCallback<T> callback) throws IOException {
+        SearcherManager manager;
+        IndexSearcher searcher;
+        while (true) {
+            manager = searcherManager;
+            try {
+                searcher = manager.acquire();
+                break;
+            } catch (AlreadyClosedException e) {
+                // Closed by a rollback between the read and the acquire, its replacement is already in place
+                if (manager == searcherManager) {
+                    throw e;
+                }
+            }
+        }
+        try {
+            return callback.apply(searcher);
+        } finally {
+            manager.release(searcher);
+        }
+    }
+
+    /**
+     * Adds or replaces one document and makes it searchable before returning.
+     */
+    public void upsert(ProductDocument product) throws IOException {
+        apply(List.of(product), List.of());
+    }
+
+    /**
+     * Adds, replaces and removes documents, searchable together once this returns.
+     */
+    public void apply(List<ProductDocument> upserts, Collection<String> deletedIds) throws IOException {
+        synchronized (writeLock) {
+            for (ProductDocument product : upserts) {
+                writer.updateDocument(new Term(ID, product.getId()), toLucene(product));
+            }
+            for (String id : deletedIds) {
+                writer.deleteDocuments(new Term(ID, id));
+            }
+            if (rebuilding) {
+                // Replayed once the rebuild ends, whether it completes or is rolled back
+                upserts.forEach(product -> changedDuringRebuild.put(product.getId(), product));
+                deletedIds.forEach(id -> changedDuringRebuild.put(id, null));
+                return;
+            }
+            searcherManager.maybeRefreshBlocking();
+        }
+    }
+
+    /**
+     * Changes every document matching the query and writes them back as one batch, returning how many changed.
+     * Reads and writes under the write lock, so a change applied meanwhile is never overwritten with the copy read here.
+     * While a rebuild runs, changes recorded since it started are newer than what searches see and are used instead;
+     * {@code affects} picks the ones the query would match.
+     */
+    public int rewrite(Query affected, Predicate<ProductDocument> affects, Consumer<ProductDocument> change) throws IOException {
+        synchronized (writeLock) {
+            Map<String, ProductDocument> products = new LinkedHashMap<>();
+            search(searcher -> {
+                int count = searcher.count(affected);
+                if (count > 0) {
+                    StoredFields storedFields = searcher.storedFields();
+                    for (ScoreDoc hit : searcher.search(affected, count).scoreDocs) {
+                        ProductDocument product = toProduct(storedFields.document(hit.doc));
+                        products.put(product.getId(), product);
+                    }
+                }
+                return null;
+            });
+            if (rebuilding) {
+                changedDuringRebuild.forEach((id, pending) -> {
+                    products.remove(id);
+                    if (pending != null && affects.test(pending)) {
+                        products.put(id, pending);
+                    }
+                });
+            }
+            List<ProductDocument> changed = List.copyOf(products.values());
+            changed.forEach(change);
+            apply(changed, List.of());
+            return changed.size();
+        }
+    }
+
+    /**
+     * Replaces the whole index with the given documents, visible to searches only once complete.
+     * Changes applied while it runs are replayed on top, so they win over the older export and survive a rollback.
+     */
+    public synchronized long rebuild(Iterator<ProductDocument> documents, ProductIndexJob job) throws IOException {
+        synchronized (writeLock) {
+            // Everything applied so far is committed first, a rollback only throws away the rebuild's own work
+            writer.commit();
+            changedDuringRebuild.clear();
+            rebuilding = true;
+            writer.deleteAll();
+        }
+        try {
+            long count = 0;
+            while (documents.hasNext()) {
+                ProductDocument product = documents.next();
+                job.getDocumentsRead().incrementAndGet();
+                writer.updateDocument(new Term(ID, product.getId()), toLucene(product));
+                job.getDocumentsIndexed().incrementAndGet();
+                count++;
+            }
+            synchronized (writeLock) {
+                replayChangedDuringRebuild();
+                writer.commit();
+                rebuilding = false;
+                searcherManager.maybeRefreshBlocking();
+            }
+            return count;
+        } catch (IOException | RuntimeException e) {
+            synchronized (writeLock) {
+                // Throw away the partial rebuild and reopen on the last commit
+                SearcherManager previous = searcherManager;
+                writer.rollback();
+                openWriter();
+                // Swapped out first; searches still holding one of its readers keep it open until they release it
+                previous.close();
+                replayChangedDuringRebuild();
+                rebuilding = false;
+                searcherManager.maybeRefreshBlocking();
+            }
+            throw e;
+        } finally {
+            synchronized (writeLock) {
+                rebuilding = false;
+                changedDuringRebuild.clear();
+            }
+        }
+    }
+
+    public ProductDocument toProduct(org.apache.lucene.document.Document document) {
+        try {
+            return objectMapper.readValue(document.getBinaryValue(SOURCE).bytes, ProductDocument.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private org.apache.lucene.document.Document toLucene(ProductDocument product) throws IOException {
+        org.apache.lucene.document.Document document = new org.apache.lucene.document.Document();
+        document.add(new StringField(ID, product.getId(), Field.Store.NO));
+        if (product.getCode() != null) {
+            document.add(new LongPoint(CODE, product.getCode()));
+            document.add(new NumericDocValuesField(CODE, product.getCode()));
+        }
+        addText(document, "name", product.getName());
+        addText(document, "description", product.getDescription());
+        addText(document, "brand", product.getBrand());
+        addText(document, "title", product.getTitle());
+        if (product.getBrand() != null) {
+            document.add(new StringField(BRAND_KEYWORD, product.getBrand(), Field.Store.NO));
+        }
+        if (product.getPrice() != null) {
+            document.add(new DoublePoint(PRICE, product.getPrice()));
+        }
+        if (product.getCategoryCodes() != null) {
+            product.getCategoryCodes().forEach(code -> document.add(new LongPoint(CATEGORY_CODES, code)));
+        }
+        if (product.getAncestorCategoryCodes() != null) {
+            product.getAncestorCategoryCodes().forEach(code -> document.add(new LongPoint(ANCESTOR_CATEGORY_CODES, code)));
+        }
+        if (product.getSuggest() != null) {
+            product.getSuggest().forEach(input ->
+                    document.add(new StringField(SUGGEST, input.toLowerCase(Locale.ROOT), Field.Store.NO)));
+        }
+        if (product.getSimilarityVector() != null) {
+            document.add(new KnnFloatVectorField(VECTOR, product.getSimilarityVector(), VectorSimilarityFunction.COSINE));
+        }
+        document.add(new DoubleDocValuesField(POPULARITY_BOOST, productPopularity.boost(product.getPopularity())));
+        // Whole document kept as JSON so hits come back exactly as indexed
+        document.add(new StoredField(SOURCE, new BytesRef(objectMapper.writeValueAsBytes(product))));
+        return document;
+    }
+
+    private void addText(org.apache.lucene.document.Document document, String field, String value) {
+        if (value != null) {
+            document.add(new TextField(field, value, Field.Store.NO));
+        }
+    }
+
+    private void replayChangedDuringRebuild() throws IOException {
+        for (Map.Entry<String, ProductDocument> change : changedDuringRebuild.entrySet()) {
+            if (change.getValue() != null) {
+                writer.updateDocument(new Term(ID, change.getKey()), toLucene(change.getValue()));
+            } else {
+                writer.deleteDocuments(new Term(ID, change.getKey()));
+            }
+        }
+    }
+
+    private void openWriter() throws IOException {
+        IndexWriterConfig config = new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        writer = new IndexWriter(directory, config);
+        searcherManager = new SearcherManager(writer, null);
+    }
+
+    private void refresh() {
+        try {
+            synchronized (writeLock) {
+                if (!rebuilding) {
+                    searcherManager.maybeRefresh();
+                }
+            }
+        } catch (Exception e) {
+            log.warn("INDEX: Lucene reader refresh failed: {}", e.getMessage());
+        }
+    }
+
+    private void commit() {
+        try {
+            // Under the lock, so a rebuild cannot start between the check and the commit
+            synchronized (writeLock) {
+                if (!rebuilding && writer.hasUncommittedChanges()) {
+                    writer.commit();
+                }
+            }
+        } catch (Exception e) {
+            log.warn("INDEX: Lucene commit failed: {}", e.getMessage());
+        }
+    }
+}
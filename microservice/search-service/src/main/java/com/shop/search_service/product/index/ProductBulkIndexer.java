@@ -0,0 +1,106 @@
+package com.shop.search_service.product.index;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._helpers.bulk.BulkIngester;
+import co.elastic.clients.elasticsearch._helpers.bulk.BulkListener;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.transport.BackoffPolicy;
+import com.shop.search_service.product.model.ProductDocument;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Streams documents into Elasticsearch in bounded chunks.
+ * Chunks are cut by document count or payload size, at most {@code maxConcurrentRequests} bulks are in flight
+ * (adding blocks beyond that), and items rejected with 429 are retried by the ingester with exponential backoff.
+ * Whatever still fails once those retries are used up is counted as failed.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductBulkIndexer {
+
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final ElasticsearchClient elasticsearchClient;
+
+    @Value("${search.index.bulk.max-documents:1000}")
+    private int maxDocuments;
+
+    @Value("${search.index.bulk.max-bytes:5242880}")
+    private long maxBytes;
+
+    @Value("${search.index.bulk.max-concurrent-requests:2}")
+    private int maxConcurrentRequests;
+
+    @Value("${search.index.bulk.retry.initial-delay-ms:500}")
+    private long retryInitialDelayMs;
+
+    @Value("${search.index.bulk.retry.max-retries:5}")
+    private int retryMaxRetries;
+
+    public void index(String indexName, Iterator<ProductDocument> documents, ProductIndexJob job) {
+        try (BulkIngester<String> ingester = BulkIngester.of(b -> b
+                .client(elasticsearchClient)
+                .maxOperations(maxDocuments)
+                .maxSize(maxBytes)
+                .maxConcurrentRequests(maxConcurrentRequests)
+                .backoffPolicy(BackoffPolicy.exponentialBackoff(retryInitialDelayMs, retryMaxRetries))
+                .listener(new JobListener(job)))) {
+            while (documents.hasNext()) {
+                ProductDocument document = documents.next();
+                job.getDocumentsRead().incrementAndGet();
+                ingester.add(op -> op.index(idx -> idx
+                        .index(indexName)
+                        .id(document.getId())
+                        .document(document)), document.getId());
+            }
+        }
+        // close() flushes the tail and waits for in-flight requests
+        log.info("INDEX: Bulk indexing into {} finished - read: {}, indexed: {}, failed: {}",
+                indexName, job.getDocumentsRead().get(), job.getDocumentsIndexed().get(),
+                job.getDocumentsFailed().get());
+    }
+
+    @RequiredArgsConstructor
+    private static class JobListener implements BulkListener<String> {
+        private final ProductIndexJob job;
+
+        @Override
+        public void beforeBulk(long executionId, BulkRequest request, List<String> contexts) {
+            job.getBulkRequests().incrementAndGet();
+            job.getPendingRequests().incrementAndGet();
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, List<String> contexts, BulkResponse response) {
+            job.getPendingRequests().decrementAndGet();
+            for (BulkResponseItem item : response.items()) {
+                if (item.error() == null) {
+                    job.getDocumentsIndexed().incrementAndGet();
+                } else {
+                    // A 429 only shows up here once the ingester's own backoff retries are exhausted
+                    job.getDocumentsFailed().incrementAndGet();
+                    job.addError(item.id() + ": " + (item.status() == TOO_MANY_REQUESTS
+                            ? "rejected after retries (429)" : item.error().reason()));
+                }
+            }
+            log.debug("INDEX: Bulk {} done - items: {}, took: {} ms", executionId, response.items().size(), response.took());
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, List<String> contexts, Throwable failure) {
+            job.getPendingRequests().decrementAndGet();
+            job.getDocumentsFailed().addAndGet(contexts.size());
+            job.addError("bulk " + executionId + ": " + failure.getMessage());
+            log.error("INDEX: Bulk {} failed for {} documents", executionId, contexts.size(), failure);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.shop.search_service.product.index;
+
+import com.shop.search_service.product.client.ProductServiceClient;
+import com.shop.search_service.product.client.response.ProductChangeResponse;
+import com.shop.search_service.product.client.response.ProductChangesResponse;
+import com.shop.search_service.product.model.ProductDocument;
+import com.shop.search_service.product.service.ProductIndexService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pulls product-service's change feed on a short interval and applies it as small bulks,
+ * so catalog edits reach search without a full reindex.
+ * The feed cursor is checkpointed to disk only after a batch is applied: a crash replays
+ * at most one batch, and replaying upserts and deletes is harmless.
+ */
+@Component
+@ConditionalOnProperty(name = "search.changes.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class ProductChangeFeedConsumer {
+
+    private final ProductServiceClient productServiceClient;
+    private final ProductDocumentSource productDocumentSource;
+    private final ProductIndexService productIndexService;
+
+    @Value("${search.changes.batch-size:500}")
+    private int batchSize;
+
+    @Value("${search.changes.checkpoint-path:./data/product-changes.checkpoint}")
+    private String checkpointPath;
+
+    @Scheduled(fixedDelayString = "${search.changes.poll-interval-ms:2000}",
+            initialDelayString = "${search.changes.poll-interval-ms:2000}")
+    public void poll() {
+        try {
+            String since = readCheckpoint();
+            ProductChangesResponse page;
+            do {
+                page = productServiceClient.getChanges(since, batchSize);
+                if (page.isReset()) {
+                    // Fell behind the feed's tombstone retention, deletes were missed: rebuild from a full export
+                    log.warn("INDEX: Product change feed cursor is behind pruned tombstones, reindexing all products");
+                    productIndexService.indexAll();
+                }
+                if (!page.getChanges().isEmpty()) {
+                    apply(page.getChanges());
+                }
+                if (page.getNextCursor() != null && !page.getNextCursor().equals(since)) {
+                    since = page.getNextCursor();
+                    writeCheckpoint(since);
+                }
+            } while (page.isHasMore());
+        } catch (Exception e) {
+            // Checkpoint is untouched, the same changes are retried on the next poll
+            log.warn("INDEX: Product change feed poll failed: {}", e.getMessage());
+        }
+    }
+
+    private void apply(List<ProductChangeResponse> changes) {
+        List<ProductDocument> upserts = new ArrayList<>();
+        List<String> deletedIds = new ArrayList<>();
+        CategoryAncestry ancestry = null;
+        for (ProductChangeResponse change : changes) {
+            if (change.isDeleted() || change.getProduct() == null) {
+                deletedIds.add(String.valueOf(change.getCode()));
+            } else {
+                if (ancestry == null) {
+                    ancestry = productDocumentSource.ancestry();
+                }
+                upserts.add(productDocumentSource.toDocument(change.getProduct(), ancestry));
+            }
+        }
+        productIndexService.applyChanges(upserts, deletedIds);
+        log.info("INDEX: Applied product changes - upserted: {}, deleted: {}, latest: {}",
+                upserts.size(), deletedIds.size(), changes.get(changes.size() - 1).getModifiedAt());
+    }
+
+    private String readCheckpoint() throws IOException {
+        Path path = Path.of(checkpointPath);
+        if (!Files.exists(path)) {
+            log.info("INDEX: No change feed checkpoint at {}, starting from the beginning", path.toAbsolutePath());
+            return null;
+        }
+        String cursor = Files.readString(path, StandardCharsets.UTF_8).trim();
+        return cursor.isEmpty() ? null : cursor;
+    }
+
+    private void writeCheckpoint(String cursor) throws IOException {
+        Path path = Path.of(checkpointPath).toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        // Write then rename, a crash mid-write must not leave a truncated cursor behind
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.writeString(temp, cursor, StandardCharsets.UTF_8);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
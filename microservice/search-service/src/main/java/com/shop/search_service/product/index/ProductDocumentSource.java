@@ -0,0 +1,160 @@
+package com.shop.search_service.product.index;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shop.search_service.product.client.CategoryServiceClient;
+import com.shop.search_service.product.client.ProductServiceClient;
+import com.shop.search_service.product.client.response.ProductDtoResponse;
+import com.shop.search_service.product.client.response.ProductExportLine;
+import com.shop.search_service.product.model.ProductDocument;
+import com.shop.search_service.product.popularity.ProductPopularity;
+import com.shop.search_service.product.similar.ProductVectorizer;
+import feign.Response;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.StreamSupport;
+
+/**
+ * Builds search documents from product-service data, shared by every index engine.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductDocumentSource {
+
+    private final ProductServiceClient productServiceClient;
+    private final CategoryServiceClient categoryServiceClient;
+    private final ProductPopularity productPopularity;
+    private final ProductVectorizer productVectorizer;
+    private final ObjectMapper objectMapper;
+    private volatile CategoryAncestry cachedAncestry;
+    private volatile long ancestryLoadedAt;
+
+    @Value("${search.index.ancestry-ttl:PT1M}")
+    private Duration ancestryTtl;
+
+    /**
+     * Streams the whole catalog from product-service's NDJSON export, one document at a time.
+     */
+    public void readCatalog(Consumer<Iterator<ProductDocument>> consumer) throws IOException {
+        try (Response response = productServiceClient.exportProducts()) {
+            if (response.status() != 200 || response.body() == null) {
+                throw new IllegalStateException("Product export returned status " + response.status());
+            }
+            try (InputStream body = response.body().asInputStream();
+                 MappingIterator<ProductExportLine> lines = objectMapper.readerFor(ProductExportLine.class).readValues(body)) {
+                consumer.accept(StreamSupport
+                        .stream(Spliterators.spliteratorUnknownSize(lines, Spliterator.ORDERED), false)
+                        .map(this::toDocument)
+                        .iterator());
+            }
+        }
+    }
+
+    /**
+     * Fills the derived fields of a document posted directly to the index endpoint.
+     */
+    public void complete(ProductDocument product) {
+        if (product.getSuggest() == null) {
+            product.setSuggest(suggestInputs(product.getName(), product.getBrand(), product.getTitle()));
+        }
+        if (product.getAncestorCategoryCodes() == null && product.getCategoryCodes() != null) {
+            product.setAncestorCategoryCodes(ancestry().closureOf(product.getCategoryCodes()));
+        }
+        if (product.getPopularity() == null) {
+            product.setPopularity(productPopularity.unitsSold(product.getCode()));
+        }
+        if (product.getSimilarityVector() == null) {
+            product.setSimilarityVector(productVectorizer.vectorize(product));
+        }
+    }
+
+    /**
+     * Builds a document from a product-service response, closures taken from an ancestry loaded by the caller.
+     */
+    public ProductDocument toDocument(ProductDtoResponse product, CategoryAncestry ancestry) {
+        ProductDocument document = ProductDocument.builder()
+                .id(product.getCode())
+                .code(Long.valueOf(product.getCode()))
+                .title(product.getTitle())
+                .name(product.getName())
+                .description(product.getDescription())
+                .imageUrl(product.getImageUrl())
+                .brand(product.getBrand())
+                .price(product.getPrice())
+                .categoryCodes(product.getCategoryCodes())
+                .ancestorCategoryCodes(ancestry.closureOf(product.getCategoryCodes()))
+                .suggest(suggestInputs(product.getName(), product.getBrand(), product.getTitle()))
+                .popularity(productPopularity.unitsSold(Long.valueOf(product.getCode())))
+                .build();
+        document.setSimilarityVector(productVectorizer.vectorize(document));
+        return document;
+    }
+
+    /**
+     * Parent links fetched now, and kept as the cached copy. Used when a category change is being applied.
+     */
+    public CategoryAncestry loadAncestry() {
+        CategoryAncestry ancestry = new CategoryAncestry(categoryServiceClient.getParentCodes());
+        cachedAncestry = ancestry;
+        ancestryLoadedAt = System.currentTimeMillis();
+        return ancestry;
+    }
+
+    /**
+     * Cached parent links for per-product writes; category changes reload them, the ttl covers other replicas.
+     */
+    public CategoryAncestry ancestry() {
+        CategoryAncestry ancestry = cachedAncestry;
+        if (ancestry != null && System.currentTimeMillis() - ancestryLoadedAt < ancestryTtl.toMillis()) {
+            return ancestry;
+        }
+        return loadAncestry();
+    }
+
+    private ProductDocument toDocument(ProductExportLine product) {
+        Set<Long> closure = new LinkedHashSet<>();
+        if (product.getCategoryCodes() != null) {
+            closure.addAll(product.getCategoryCodes());
+        }
+        if (product.getAncestorCategoryCodes() != null) {
+            closure.addAll(product.getAncestorCategoryCodes());
+        }
+        ProductDocument document = ProductDocument.builder()
+                .id(String.valueOf(product.getCode()))
+                .code(product.getCode())
+                .title(product.getTitle())
+                .name(product.getName())
+                .description(product.getDescription())
+                .imageUrl(product.getImageUrl())
+                .brand(product.getBrand())
+                .price(product.getPrice())
+                .categoryCodes(product.getCategoryCodes())
+                .ancestorCategoryCodes(closure)
+                .suggest(suggestInputs(product.getName(), product.getBrand(), product.getTitle()))
+                .popularity(productPopularity.unitsSold(product.getCode()))
+                .build();
+        document.setSimilarityVector(productVectorizer.vectorize(document));
+        return document;
+    }
+
+    private List<String> suggestInputs(String name, String brand, String title) {
+        Set<String> inputs = new LinkedHashSet<>();
+        for (String value : new String[]{name, brand, title}) {
+            if (value != null && !value.isBlank()) {
+                inputs.add(value.trim());
+            }
+        }
+        // Lets "apple" complete to the product name as well as to the brand
+        if (brand != null && !brand.isBlank() && name != null && !name.isBlank()) {
+            inputs.add(brand.trim() + " " + name.trim());
+        }
+        return new ArrayList<>(inputs);
+    }
+}
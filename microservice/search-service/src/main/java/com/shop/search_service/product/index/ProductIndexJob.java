@@ -0,0 +1,92 @@
+package com.shop.search_service.product.index;
+
+import com.shop.search_service.product.dto.response.IndexJobResponse;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live progress of one bulk indexing run. Counters are updated from bulk listener threads.
+ */
+@Getter
+public class ProductIndexJob {
+
+    public enum Status { RUNNING, COMPLETED, COMPLETED_WITH_ERRORS, FAILED }
+
+    private static final int MAX_ERROR_SAMPLES = 20;
+
+    private final String jobId = UUID.randomUUID().toString();
+    private final String index;
+    private final Instant startedAt = Instant.now();
+    private volatile Instant finishedAt;
+    private volatile Status status = Status.RUNNING;
+
+    private final AtomicLong documentsRead = new AtomicLong();
+    private final AtomicLong documentsIndexed = new AtomicLong();
+    private final AtomicLong documentsFailed = new AtomicLong();
+    private final AtomicLong bulkRequests = new AtomicLong();
+    private final AtomicInteger pendingRequests = new AtomicInteger();
+    private final List<String> errors = new ArrayList<>();
+    // Categories changed while the catalog was being read, refreshed in this generation before it is promoted
+    private final Queue<Long> changedCategories = new ConcurrentLinkedQueue<>();
+
+    public ProductIndexJob(String index) {
+        this.index = index;
+    }
+
+    public boolean isRunning() {
+        return status == Status.RUNNING;
+    }
+
+    public void addError(String error) {
+        synchronized (errors) {
+            if (errors.size() < MAX_ERROR_SAMPLES) {
+                errors.add(error);
+            }
+        }
+    }
+
+    public void categoryChanged(Long categoryCode) {
+        changedCategories.add(categoryCode);
+    }
+
+    public Long nextChangedCategory() {
+        return changedCategories.poll();
+    }
+
+    public void finish(Status status) {
+        this.finishedAt = Instant.now();
+        this.status = status;
+    }
+
+    public IndexJobResponse toResponse() {
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        long millis = Math.max(1, Duration.between(startedAt, end).toMillis());
+        List<String> errorSamples;
+        synchronized (errors) {
+            errorSamples = List.copyOf(errors);
+        }
+        return IndexJobResponse.builder()
+                .jobId(jobId)
+                .index(index)
+                .status(status.name())
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .documentsRead(documentsRead.get())
+                .documentsIndexed(documentsIndexed.get())
+                .documentsFailed(documentsFailed.get())
+                .bulkRequests(bulkRequests.get())
+                .pendingRequests(pendingRequests.get())
+                .documentsPerSecond(documentsIndexed.get() * 1000.0 / millis)
+                .errors(errorSamples)
+                .build();
+    }
+}
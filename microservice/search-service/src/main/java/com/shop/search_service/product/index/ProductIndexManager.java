@@ -0,0 +1,133 @@
+package com.shop.search_service.product.index;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch.indices.update_aliases.Action;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Versioned product indices behind a single alias.
+ * A full reindex writes into a fresh generation (no refresh, no replicas), which only becomes
+ * visible to searches once it passes the document-count check and the alias is swapped atomically.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductIndexManager {
+
+    public static final String ALIAS = "products";
+    private static final String GENERATION_PREFIX = ALIAS + "_v";
+    private static final DateTimeFormatter GENERATION_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private final ElasticsearchClient elasticsearchClient;
+
+    @Value("${search.index.replicas:1}")
+    private int replicas;
+
+    @Value("${search.index.refresh-interval:1s}")
+    private String refreshInterval;
+
+    @Value("${search.index.retained-generations:2}")
+    private int retainedGenerations;
+
+    @Value("${search.index.min-document-ratio:0.95}")
+    private double minDocumentRatio;
+
+    /**
+     * Creates an empty generation tuned for bulk loading. Mappings and analysis come from {@link ProductIndexTemplate}.
+     */
+    public String createGeneration() throws IOException {
+        String index = GENERATION_PREFIX + LocalDateTime.now().format(GENERATION_FORMAT);
+        elasticsearchClient.indices().create(c -> c
+                .index(index)
+                .settings(s -> s
+                        .refreshInterval(t -> t.time("-1"))
+                        .numberOfReplicas("0")));
+        log.info("INDEX: Created generation {}", index);
+        return index;
+    }
+
+    /**
+     * Restores serving settings, checks the document count and points the alias at the new generation.
+     */
+    public void promote(String index, long expectedDocuments) throws IOException {
+        elasticsearchClient.indices().putSettings(p -> p
+                .index(index)
+                .settings(s -> s
+                        .refreshInterval(t -> t.time(refreshInterval))
+                        .numberOfReplicas(String.valueOf(replicas))));
+        elasticsearchClient.indices().refresh(r -> r.index(index));
+
+        long count = elasticsearchClient.count(c -> c.index(index)).count();
+        if (count < Math.ceil(expectedDocuments * minDocumentRatio)) {
+            throw new IllegalStateException("Generation " + index + " holds " + count
+                    + " documents, expected at least " + minDocumentRatio + " of " + expectedDocuments);
+        }
+
+        Set<String> current = getAliasedIndices();
+        List<Action> actions = new ArrayList<>();
+        actions.add(Action.of(a -> a.add(add -> add.index(index).alias(ALIAS))));
+        current.forEach(old -> actions.add(Action.of(a -> a.remove(rm -> rm.index(old).alias(ALIAS)))));
+        if (current.isEmpty() && isConcreteIndex(ALIAS)) {
+            // Pre-alias layout: the live data sits in a plain index named like the alias
+            actions.add(Action.of(a -> a.removeIndex(ri -> ri.index(ALIAS))));
+        }
+        elasticsearchClient.indices().updateAliases(u -> u.actions(actions));
+        log.info("INDEX: Alias {} now points to {} ({} documents), previously {}", ALIAS, index, count, current);
+
+        prune(index);
+    }
+
+    /**
+     * Drops a generation that never went live.
+     */
+    public void discard(String index) {
+        try {
+            elasticsearchClient.indices().delete(d -> d.index(index));
+            log.info("INDEX: Discarded generation {}", index);
+        } catch (Exception e) {
+            log.warn("INDEX: Failed to discard generation {}: {}", index, e.getMessage());
+        }
+    }
+
+    private void prune(String liveIndex) throws IOException {
+        List<String> generations = elasticsearchClient.indices().get(g -> g.index(GENERATION_PREFIX + "*"))
+                .result().keySet().stream()
+                .filter(name -> !name.equals(liveIndex))
+                .sorted(Comparator.reverseOrder())
+                .toList();
+        // Keep the most recent previous generations around for a manual rollback
+        List<String> stale = generations.stream().skip(Math.max(0, retainedGenerations - 1)).toList();
+        if (!stale.isEmpty()) {
+            elasticsearchClient.indices().delete(d -> d.index(stale));
+            log.info("INDEX: Pruned generations {}", stale);
+        }
+    }
+
+    private Set<String> getAliasedIndices() throws IOException {
+        try {
+            return elasticsearchClient.indices().getAlias(g -> g.name(ALIAS)).result().keySet();
+        } catch (ElasticsearchException e) {
+            if (e.status() == 404) {
+                return Set.of();
+            }
+            throw e;
+        }
+    }
+
+    private boolean isConcreteIndex(String name) throws IOException {
+        return elasticsearchClient.indices().exists(e -> e.index(name)).value()
+                && !elasticsearchClient.indices().existsAlias(e -> e.name(name)).value();
+    }
+}
@@ -0,0 +1,140 @@
+package com.shop.search_service.product.index;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.mapping.Property;
+import co.elastic.clients.elasticsearch.indices.GetIndexTemplateResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Owns the composable index template that every products_v* generation is created from.
+ * Applied at startup when missing or older than the bundled version, then checked against the live index.
+ */
+@Component
+@ConditionalOnProperty(name = "search.engine", havingValue = "elasticsearch", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class ProductIndexTemplate {
+
+    public static final String NAME = "products-template";
+    private static final String RESOURCE = "elasticsearch/product-index-template.json";
+
+    private final ElasticsearchClient elasticsearchClient;
+    private final ObjectMapper objectMapper;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void apply() {
+        try {
+            long bundled = bundledVersion();
+            Long installed = installedVersion();
+            if (installed == null || installed < bundled) {
+                try (InputStream template = new ClassPathResource(RESOURCE).getInputStream()) {
+                    elasticsearchClient.indices().putIndexTemplate(p -> p.name(NAME).withJson(template));
+                }
+                installed = installedVersion();
+                if (installed == null || installed != bundled) {
+                    throw new IllegalStateException("Index template " + NAME + " reports version " + installed
+                            + " after applying version " + bundled);
+                }
+                log.info("INDEX: Applied index template {} version {}", NAME, bundled);
+            } else {
+                log.info("INDEX: Index template {} is at version {}", NAME, installed);
+            }
+            verifyLiveMapping();
+        } catch (Exception e) {
+            // Search keeps serving whatever is live, generations just cannot be created until this succeeds
+            log.error("INDEX: Could not apply index template {}: {}", NAME, e.getMessage());
+        }
+    }
+
+    private long bundledVersion() throws IOException {
+        try (InputStream template = new ClassPathResource(RESOURCE).getInputStream()) {
+            JsonNode json = objectMapper.readTree(template);
+            return json.path("version").asLong();
+        }
+    }
+
+    private Long installedVersion() throws IOException {
+        try {
+            GetIndexTemplateResponse response = elasticsearchClient.indices().getIndexTemplate(g -> g.name(NAME));
+            return response.indexTemplates().isEmpty() ? null : response.indexTemplates().get(0).indexTemplate().version();
+        } catch (ElasticsearchException e) {
+            if (e.status() == 404) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Warns when the generation behind the alias predates the template, e.g. created by dynamic mapping.
+     * Fields added to the template since are put on the live index, additive mapping changes need no rebuild.
+     */
+    private void verifyLiveMapping() throws IOException {
+        if (!elasticsearchClient.indices().exists(e -> e.index(ProductIndexManager.ALIAS)).value()) {
+            log.info("INDEX: No live product index yet, run indexAll to create the first generation");
+            return;
+        }
+        elasticsearchClient.indices().getMapping(g -> g.index(ProductIndexManager.ALIAS)).result()
+                .forEach((index, record) -> {
+                    Map<String, Property> properties = record.mappings().properties();
+                    addMissingFields(index, properties.keySet());
+                    boolean matches = isKind(properties, "price", Property.Kind.ScaledFloat)
+                            && isKind(properties, "suggest", Property.Kind.Completion)
+                            && isKind(properties, "ancestorCategoryCodes", Property.Kind.Long)
+                            && properties.get("brand") != null && properties.get("brand").isText()
+                            && properties.get("brand").text().fields().containsKey("keyword");
+                    if (matches) {
+                        log.info("INDEX: Live index {} matches the product mapping", index);
+                    } else {
+                        log.warn("INDEX: Live index {} does not match template {}, run indexAll to rebuild it", index, NAME);
+                    }
+                });
+    }
+
+    private void addMissingFields(String index, Set<String> liveFields) {
+        try {
+            ObjectNode missing = objectMapper.createObjectNode();
+            List<String> added = new ArrayList<>();
+            try (InputStream template = new ClassPathResource(RESOURCE).getInputStream()) {
+                objectMapper.readTree(template).path("template").path("mappings").path("properties").properties()
+                        .forEach(field -> {
+                            if (!liveFields.contains(field.getKey())) {
+                                missing.set(field.getKey(), field.getValue());
+                                added.add(field.getKey());
+                            }
+                        });
+            }
+            if (missing.isEmpty()) {
+                return;
+            }
+            String body = objectMapper.writeValueAsString(objectMapper.createObjectNode().set("properties", missing));
+            elasticsearchClient.indices().putMapping(m -> m.index(index).withJson(new StringReader(body)));
+            log.info("INDEX: Added fields {} to live index {}", added, index);
+        } catch (Exception e) {
+            log.warn("INDEX: Could not add new template fields to live index {}: {}", index, e.getMessage());
+        }
+    }
+
+    private static boolean isKind(Map<String, Property> properties, String field, Property.Kind kind) {
+        Property property = properties.get(field);
+        return property != null && property._kind() == kind;
+    }
+}
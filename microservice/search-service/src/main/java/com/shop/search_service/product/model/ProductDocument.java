@@ -1,5 +1,6 @@
 package com.shop.search_service.product.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -8,6 +9,7 @@ import org.springframework.data.elasticsearch.annotations.Document;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
 
+import java.util.List;
 import java.util.Set;
 
 @Data
@@ -26,5 +28,15 @@ public class ProductDocument {
     private String brand;
     @Field(type = FieldType.Long)
     private Set<Long> categoryCodes;
+    // categoryCodes plus all of their ancestors, so a category filter is a single term
+    @Field(type = FieldType.Long)
+    private Set<Long> ancestorCategoryCodes;
+    // Completion suggester inputs built from name, brand and title
+    private List<String> suggest;
+    // Units sold over order-service's rolling window, the ranking boost input
+    private Long popularity;
+    // Hashed-feature vector for similar products, left out of search hits
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private float[] similarityVector;
 
 }
@@ -0,0 +1,153 @@
+package com.shop.search_service.product.popularity;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.FieldValueFactorModifier;
+import co.elastic.clients.elasticsearch._types.query_dsl.FunctionBoostMode;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import com.shop.search_service.product.service.ProductIndexService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sales-based popularity: the latest rolling units-sold snapshot pushed by order-service,
+ * and the function_score that multiplies relevance by log10(2 + factor * units).
+ * Unsold products keep their relevance scaled by the same constant, so they are never filtered out.
+ * The snapshot only lives in memory, so it starts from what the index already holds: documents built
+ * before the first push keep their popularity, and the first push can still reset products that stopped selling.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductPopularity {
+
+    public static final String FIELD = "popularity";
+
+    private final MeterRegistry meterRegistry;
+    // Lazy, the index services depend on this class in turn
+    private final ObjectProvider<ProductIndexService> productIndexService;
+    private volatile Map<Long, Long> unitsSold = Map.of();
+    private volatile boolean loaded;
+    private volatile long loadFailedAt;
+    private Timer boostedTook;
+    private Timer plainTook;
+
+    @Value("${search.popularity.enabled:true}")
+    private boolean enabled;
+
+    @Value("${search.popularity.load-retry-interval:PT30S}")
+    private Duration loadRetryInterval;
+
+    @Value("${search.popularity.factor:1.0}")
+    private float factor;
+
+    // Query latency budget: the search.query.took histogram reports how many queries stayed under it
+    @Value("${search.popularity.latency-budget:PT0.05S}")
+    private Duration latencyBudget;
+
+    @PostConstruct
+    void init() {
+        boostedTook = took("popularity");
+        plainTook = took("relevance");
+    }
+
+    public Long unitsSold(Long code) {
+        ensureLoaded();
+        return code != null ? unitsSold.get(code) : null;
+    }
+
+    /**
+     * Products whose value differs from the current snapshot; products that fell out of it go to 0.
+     */
+    public Map<Long, Long> diff(Map<Long, Long> snapshot) {
+        ensureLoaded();
+        Map<Long, Long> current = unitsSold;
+        Map<Long, Long> changed = new HashMap<>();
+        snapshot.forEach((code, units) -> {
+            if (!units.equals(current.get(code))) {
+                changed.put(code, units);
+            }
+        });
+        current.keySet().forEach(code -> {
+            if (!snapshot.containsKey(code)) {
+                changed.put(code, 0L);
+            }
+        });
+        return changed;
+    }
+
+    /**
+     * Makes the snapshot current, called once the index has been updated so a failed update is retried by the next push.
+     */
+    public void replace(Map<Long, Long> snapshot) {
+        unitsSold = Map.copyOf(snapshot);
+        loaded = true;
+    }
+
+    // Seeds the snapshot from the index once; a failed read is retried after an interval, not on every document
+    private void ensureLoaded() {
+        if (loaded || System.currentTimeMillis() - loadFailedAt < loadRetryInterval.toMillis()) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            try {
+                unitsSold = Map.copyOf(productIndexService.getObject().indexedPopularity());
+                loaded = true;
+                log.info("INDEX: Popularity seeded from the index for {} products", unitsSold.size());
+            } catch (Exception e) {
+                loadFailedAt = System.currentTimeMillis();
+                log.warn("INDEX: Could not read indexed popularity, retrying in {}: {}", loadRetryInterval, e.getMessage());
+            }
+        }
+    }
+
+    public Query rank(Query query) {
+        if (!enabled) {
+            return query;
+        }
+        return Query.of(q -> q.functionScore(fs -> fs
+                .query(query)
+                .functions(f -> f.fieldValueFactor(v -> v
+                        .field(FIELD)
+                        .factor((double) factor)
+                        .modifier(FieldValueFactorModifier.Log2p)
+                        .missing(0.0)))
+                .boostMode(FunctionBoostMode.Multiply)));
+    }
+
+    /**
+     * Same multiplier as the function_score, for engines that store it per document.
+     */
+    public double boost(Long units) {
+        return Math.log10(2 + factor * (units != null ? units : 0));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void recordTook(long tookMillis) {
+        (enabled ? boostedTook : plainTook).record(tookMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private Timer took(String ranking) {
+        return Timer.builder("search.query.took")
+                .description("Elasticsearch-reported query time of page-mode searches")
+                .tag("ranking", ranking)
+                .serviceLevelObjectives(latencyBudget)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,37 @@
+package com.shop.search_service.product.popularity;
+
+import com.shop.search_service.product.client.OrderServiceClient;
+import com.shop.search_service.product.service.ProductIndexService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Pulls the sales snapshot from order-service shortly after startup and then on an interval.
+ * order-service's push only reaches one replica; pulling keeps every replica's snapshot current,
+ * so the documents each of them builds carry the same popularity.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductPopularitySync {
+
+    private final OrderServiceClient orderServiceClient;
+    private final ProductIndexService productIndexService;
+
+    @Scheduled(fixedDelayString = "${search.popularity.pull-interval-ms:300000}",
+            initialDelayString = "${search.popularity.pull-initial-delay-ms:10000}")
+    public void pull() {
+        try {
+            Map<Long, Long> unitsSold = orderServiceClient.getSalesSnapshot();
+            String result = productIndexService.updatePopularity(unitsSold);
+            log.info("INDEX: Pulled sales snapshot for {} products: {}", unitsSold.size(), result);
+        } catch (Exception e) {
+            // The snapshot seeded from the index stays in use until a pull or push succeeds
+            log.warn("INDEX: Could not pull sales snapshot: {}", e.getMessage());
+        }
+    }
+}
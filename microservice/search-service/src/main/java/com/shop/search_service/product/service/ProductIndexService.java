@@ -1,11 +1,29 @@
 package com.shop.search_service.product.service;
 
+import com.shop.search_service.product.dto.request.ProductSearchRequest;
+import com.shop.search_service.product.dto.response.IndexJobResponse;
+import com.shop.search_service.product.dto.response.MultiSearchItemResponse;
 import com.shop.search_service.product.dto.response.ProductSearchResponse;
+import com.shop.search_service.product.dto.response.ProductSuggestionResponse;
 import com.shop.search_service.product.model.ProductDocument;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 public interface ProductIndexService {
     String indexProduct(ProductDocument product);
     String indexAll();
-    ProductSearchResponse search(String keyword, Long categoryCode, int page, int size);
+    String applyChanges(List<ProductDocument> upserts, Collection<String> deletedIds);
+    IndexJobResponse getIndexJob();
+    String reindexCategory(Long categoryCode);
+    String updatePopularity(Map<Long, Long> unitsSold);
+    Map<Long, Long> indexedPopularity();
+    List<ProductSuggestionResponse> suggest(String prefix, int size);
+    List<ProductDocument> similar(Long code, int size);
+    ProductSearchResponse search(String keyword, Long categoryCode, List<String> brands,
+                                 Double minPrice, Double maxPrice, int page, int size);
+    List<MultiSearchItemResponse> multiSearch(List<ProductSearchRequest> searches);
+    ProductSearchResponse searchAfter(String keyword, Long categoryCode, int size, String cursor);
 
 }
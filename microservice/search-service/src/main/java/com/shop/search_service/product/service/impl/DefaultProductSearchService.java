@@ -1,46 +1,112 @@
 package com.shop.search_service.product.service.impl;
 
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.Refresh;
+import co.elastic.clients.elasticsearch._types.SortOrder;
 import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
 import co.elastic.clients.elasticsearch._types.query_dsl.QueryBuilders;
-import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
 import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.GetResponse;
+import co.elastic.clients.elasticsearch.core.MsearchResponse;
 import co.elastic.clients.elasticsearch.core.SearchRequest;
 import co.elastic.clients.elasticsearch.core.SearchResponse;
 import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
-import com.shop.search_service.product.client.CategoryServiceClient;
-import com.shop.search_service.product.client.ProductServiceClient;
-import com.shop.search_service.product.client.response.ProductPageableResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.msearch.MultiSearchItem;
+import co.elastic.clients.elasticsearch.core.msearch.MultiSearchResponseItem;
+import co.elastic.clients.elasticsearch.core.msearch.RequestItem;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.HitsMetadata;
+import com.shop.search_service.product.cache.SearchResultCache;
+import com.shop.search_service.product.cursor.SearchCursorCodec;
+import com.shop.search_service.product.cursor.SearchCursorExpiredException;
+import com.shop.search_service.product.dto.request.ProductSearchRequest;
+import com.shop.search_service.product.dto.response.IndexJobResponse;
+import com.shop.search_service.product.dto.response.MultiSearchItemResponse;
 import com.shop.search_service.product.dto.response.ProductSearchResponse;
+import com.shop.search_service.product.dto.response.ProductSuggestionResponse;
+import com.shop.search_service.product.facet.ProductFacets;
+import com.shop.search_service.product.index.CategoryAncestry;
+import com.shop.search_service.product.index.ProductBulkIndexer;
+import com.shop.search_service.product.index.ProductDocumentSource;
+import com.shop.search_service.product.index.ProductIndexJob;
+import com.shop.search_service.product.index.ProductIndexManager;
 import com.shop.search_service.product.model.ProductDocument;
+import com.shop.search_service.product.popularity.ProductPopularity;
+import com.shop.search_service.product.similar.ProductVectorizer;
 import com.shop.search_service.product.service.ProductIndexService;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 @Service
+@ConditionalOnProperty(name = "search.engine", havingValue = "elasticsearch", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
 public class DefaultProductSearchService implements ProductIndexService {
     private final ElasticsearchClient elasticsearchClient;
-    private final ProductServiceClient productServiceClient;
-    private final CategoryServiceClient categoryServiceClient;
+    private final ProductDocumentSource productDocumentSource;
+    private final ProductBulkIndexer productBulkIndexer;
+    private final ProductIndexManager productIndexManager;
+    private final ExecutorService indexJobExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "product-index-job"));
+    private volatile ProductIndexJob currentJob;
 
-    private final String INDEX_NAME = "products";
+    private final SearchCursorCodec searchCursorCodec;
+    private final ProductFacets productFacets;
+    private final SearchResultCache searchResultCache;
+    private final ProductPopularity productPopularity;
+    private final ProductVectorizer productVectorizer;
+
+    private static final int CATEGORY_REINDEX_BATCH = 500;
+    private static final int POPULARITY_BATCH = 500;
+    private static final String PIT_KEEP_ALIVE = "1m";
+    private static final String SUGGESTER = "products";
+    private static final int MAX_SUGGESTIONS = 10;
+    private static final int MAX_MULTI_SEARCH = 20;
+    private static final int MAX_SIMILAR = 50;
+
+    // Same backoff as ProductBulkIndexer, for the update bulks sent outside of it
+    @Value("${search.index.bulk.retry.initial-delay-ms:500}")
+    private long bulkRetryInitialDelayMs;
+
+    @Value("${search.index.bulk.retry.max-retries:5}")
+    private int bulkRetryMaxRetries;
 
     @Override
     public String indexProduct(ProductDocument product) {
         try {
+            productDocumentSource.complete(product);
+            // wait_for: the result cache is invalidated below, the next search must already see this write
             elasticsearchClient.index(i -> i
-                    .index(INDEX_NAME)
+                    .index(ProductIndexManager.ALIAS)
                     .id(product.getId())
                     .document(product)
+                    .refresh(Refresh.WaitFor)
             );
+            // A running reindex would otherwise publish a generation without this write
+            ProductIndexJob job = currentJob;
+            if (job != null && job.isRunning()) {
+                elasticsearchClient.index(i -> i
+                        .index(job.getIndex())
+                        .id(product.getId())
+                        .document(product)
+                );
+            }
+            searchResultCache.bumpGeneration("product " + product.getId());
             return "Product indexed successfully: " + product.getId();
         } catch (Exception e) {
             throw new RuntimeException("Elasticsearch index error: " + e.getMessage(), e);
@@ -48,112 +114,387 @@ public class DefaultProductSearchService implements ProductIndexService {
     }
 
     @Override
-    public String indexAll() {
-        try {
-            List<ProductDocument> products = getAllProducts();
-            List<BulkOperation> operations = products.stream()
-                    .map(product ->
-                            BulkOperation.of(op ->
-                                    op.index(idx -> idx
-                                            .index(INDEX_NAME)
-                                            .id(product.getId())
-                                            .document(product)
-                                    )
-                            )
-                    ).toList();
-
-            BulkRequest bulkRequest = BulkRequest.of(br -> br.operations(operations));
-            BulkResponse response = elasticsearchClient.bulk(bulkRequest);
-            if (response.errors()) {
-                return "All products index completed with errors";
+    public String applyChanges(List<ProductDocument> upserts, Collection<String> deletedIds) {
+        if (upserts.isEmpty() && deletedIds.isEmpty()) {
+            return "No changes";
+        }
+        try {
+            bulkChanges(ProductIndexManager.ALIAS, upserts, deletedIds, Refresh.WaitFor);
+            // Same reasoning as indexProduct: keep the generation being built in step
+            ProductIndexJob job = currentJob;
+            if (job != null && job.isRunning()) {
+                bulkChanges(job.getIndex(), upserts, deletedIds, Refresh.False);
             }
-            return "All products index completed successfully. Total: " + products.size();
+            searchResultCache.bumpGeneration("changes " + upserts.size() + "/" + deletedIds.size());
+            return "Changes applied. Upserted: " + upserts.size() + ", deleted: " + deletedIds.size();
+        } catch (Exception e) {
+            throw new RuntimeException("Elasticsearch change apply error: " + e.getMessage(), e);
+        }
+    }
+
+    private void bulkChanges(String index, List<ProductDocument> upserts, Collection<String> deletedIds,
+                             Refresh refresh) throws IOException {
+        List<BulkOperation> operations = new ArrayList<>(upserts.size() + deletedIds.size());
+        upserts.forEach(product -> operations.add(BulkOperation.of(op -> op.index(i -> i
+                .index(index)
+                .id(product.getId())
+                .document(product)))));
+        // Deleting a document that is not there comes back as not_found, which is not an item error
+        deletedIds.forEach(id -> operations.add(BulkOperation.of(op -> op.delete(d -> d
+                .index(index)
+                .id(id)))));
+        BulkResponse response = elasticsearchClient.bulk(b -> b.operations(operations).refresh(refresh));
+        if (response.errors()) {
+            String reason = response.items().stream()
+                    .filter(item -> item.error() != null)
+                    .map(item -> item.id() + ": " + item.error().reason())
+                    .findFirst()
+                    .orElse("unknown");
+            throw new IllegalStateException("Bulk to " + index + " had failed items, first " + reason);
+        }
+    }
+
+    @Override
+    public synchronized String indexAll() {
+        if (currentJob != null && currentJob.isRunning()) {
+            return "All products indexing already running. Job: " + currentJob.getJobId();
+        }
+        ProductIndexJob job;
+        try {
+            job = new ProductIndexJob(productIndexManager.createGeneration());
         } catch (Exception e) {
             throw new RuntimeException("All products indexing error: " + e.getMessage(), e);
         }
+        currentJob = job;
+        indexJobExecutor.submit(() -> runIndexAll(job));
+        log.info("INDEX: All products indexing started - job: {}", job.getJobId());
+        return "All products indexing started. Job: " + job.getJobId();
     }
 
     @Override
-    public ProductSearchResponse search(String keyword, Long categoryCode, int page, int size) {
+    public IndexJobResponse getIndexJob() {
+        ProductIndexJob job = currentJob;
+        return job != null ? job.toResponse() : null;
+    }
+
+    @PreDestroy
+    public void shutdownIndexJobExecutor() {
+        indexJobExecutor.shutdownNow();
+    }
+
+    private void runIndexAll(ProductIndexJob job) {
         try {
-            log.info("SEARCH: Searching products - keyword: {}, categoryCode: {}, page: {}, size: {}",
-                    keyword, categoryCode, page, size);
+            productDocumentSource.readCatalog(documents -> productBulkIndexer.index(job.getIndex(), documents, job));
+            refreshChangedCategories(job, job.getIndex());
+            productIndexManager.promote(job.getIndex(), job.getDocumentsRead().get());
+        } catch (Exception e) {
+            log.error("INDEX: All products indexing failed - job: {}", job.getJobId(), e);
+            job.addError(e.getMessage());
+            productIndexManager.discard(job.getIndex());
+            job.finish(ProductIndexJob.Status.FAILED);
+            return;
+        }
+        boolean categoriesRefreshed = true;
+        try {
+            // Changes recorded between the refresh above and the alias swap, the alias now points at the new generation
+            refreshChangedCategories(job, ProductIndexManager.ALIAS);
+        } catch (Exception e) {
+            // The new generation is live already, it must not be discarded over this
+            log.error("INDEX: Category refresh after promoting {} failed - job: {}", job.getIndex(), job.getJobId(), e);
+            job.addError(e.getMessage());
+            categoriesRefreshed = false;
+        }
+        searchResultCache.bumpGeneration("reindex " + job.getIndex());
+        job.finish(job.getDocumentsFailed().get() > 0 || !categoriesRefreshed
+                ? ProductIndexJob.Status.COMPLETED_WITH_ERRORS : ProductIndexJob.Status.COMPLETED);
+    }
 
-            BoolQuery.Builder boolQuery = new BoolQuery.Builder();
-            boolean hasQuery = false;
+    @Override
+    public List<ProductSuggestionResponse> suggest(String prefix, int size) {
+        if (prefix == null || prefix.isBlank()) {
+            return Collections.emptyList();
+        }
+        try {
+            int limit = Math.min(Math.max(size, 1), MAX_SUGGESTIONS);
+            // Completion suggester only: no query phase and no _source fetch
+            SearchResponse<Void> response = elasticsearchClient.search(s -> s
+                    .index(ProductIndexManager.ALIAS)
+                    .source(src -> src.fetch(false))
+                    .suggest(sg -> sg.suggesters(SUGGESTER, fs -> fs
+                            .prefix(prefix.trim())
+                            .completion(c -> c
+                                    .field("suggest")
+                                    .size(limit)
+                                    .skipDuplicates(true)))),
+                    Void.class);
 
-            // Add keyword search if provided
-            if (keyword != null && !keyword.isBlank()) {
-                boolQuery.must(QueryBuilders.multiMatch()
-                        .query(keyword)
-                        .fields("name", "description", "brand", "title")
-                        .fuzziness("AUTO")
-                        .build()._toQuery()
-                );
-                hasQuery = true;
+            return response.suggest().getOrDefault(SUGGESTER, Collections.emptyList()).stream()
+                    .flatMap(suggestion -> suggestion.completion().options().stream())
+                    .map(option -> ProductSuggestionResponse.builder()
+                            .text(option.text())
+                            .code(option.id() != null ? Long.valueOf(option.id()) : null)
+                            .build())
+                    .collect(Collectors.toList());
+        } catch (Exception e) {
+            log.error("SEARCH: Suggest error for prefix {}: {}", prefix, e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    @Override
+    public List<ProductDocument> similar(Long code, int size) {
+        try {
+            return productVectorizer.getQueryTimer().recordCallable(() -> {
+                GetResponse<ProductDocument> source = elasticsearchClient.get(g -> g
+                        .index(ProductIndexManager.ALIAS)
+                        .id(String.valueOf(code))
+                        .sourceIncludes(ProductVectorizer.FIELD), ProductDocument.class);
+                if (!source.found() || source.source() == null || source.source().getSimilarityVector() == null) {
+                    log.info("SEARCH: No vector for product {}, no similar products", code);
+                    return Collections.<ProductDocument>emptyList();
+                }
+                float[] vector = source.source().getSimilarityVector();
+                List<Float> queryVector = new ArrayList<>(vector.length);
+                for (float v : vector) {
+                    queryVector.add(v);
+                }
+                int k = Math.min(Math.max(size, 1), MAX_SIMILAR);
+                SearchResponse<ProductDocument> response = elasticsearchClient.search(s -> s
+                        .index(ProductIndexManager.ALIAS)
+                        .knn(knn -> knn
+                                .field(ProductVectorizer.FIELD)
+                                .queryVector(queryVector)
+                                .k(k)
+                                // Wider HNSW candidate pool than k for better recall, still a bounded graph walk
+                                .numCandidates(Math.max(100, k * 10))
+                                .filter(f -> f.bool(b -> b.mustNot(m -> m.ids(i -> i.values(String.valueOf(code)))))))
+                        .source(src -> src.filter(f -> f.excludes(ProductVectorizer.FIELD)))
+                        .size(k), ProductDocument.class);
+                return response.hits().hits().stream()
+                        .map(Hit::source)
+                        .collect(Collectors.toList());
+            });
+        } catch (Exception e) {
+            log.error("SEARCH: Similar products error for {}: {}", code, e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    @Override
+    public String reindexCategory(Long categoryCode) {
+        try {
+            CategoryAncestry ancestry = productDocumentSource.loadAncestry();
+            long updated = refreshCategory(ProductIndexManager.ALIAS, categoryCode, ancestry);
+            // The generation being built may already hold documents with the old closure, fixed before it is promoted
+            ProductIndexJob job = currentJob;
+            if (job != null && job.isRunning()) {
+                job.categoryChanged(categoryCode);
             }
+            searchResultCache.bumpGeneration("category " + categoryCode);
+            log.info("INDEX: Category {} refresh updated {} products", categoryCode, updated);
+            return "Category products reindexed. Total: " + updated;
+        } catch (Exception e) {
+            throw new RuntimeException("Category reindex error: " + e.getMessage(), e);
+        }
+    }
+
+    // Recomputes ancestorCategoryCodes for every product that was under the category or is linked to it directly
+    private long refreshCategory(String index, Long categoryCode, CategoryAncestry ancestry) throws IOException {
+        Query affected = QueryBuilders.bool()
+                .should(QueryBuilders.term().field("ancestorCategoryCodes").value(categoryCode).build()._toQuery())
+                .should(QueryBuilders.term().field("categoryCodes").value(categoryCode).build()._toQuery())
+                .build()._toQuery();
 
-            // Add category filter if provided (including all descendant categories)
-            if (categoryCode != null) {
-                try {
-                    // Get all descendant category codes
-                    List<Long> allCategoryCodes = categoryServiceClient.getDescendantCodes(categoryCode);
-                    log.info("SEARCH: Category {} has {} total codes (including descendants): {}",
-                            categoryCode, allCategoryCodes.size(), allCategoryCodes);
-
-                    // Use terms query to match any of the category codes
-                    boolQuery.filter(QueryBuilders.terms()
-                            .field("categoryCodes")
-                            .terms(t -> t.value(allCategoryCodes.stream()
-                                    .map(code -> co.elastic.clients.elasticsearch._types.FieldValue.of(code))
-                                    .collect(Collectors.toList())))
-                            .build()._toQuery()
-                    );
-                } catch (Exception e) {
-                    log.warn("SEARCH: Failed to get descendant codes, falling back to single category: {}", e.getMessage());
-                    // Fallback to single category if feign call fails
-                    boolQuery.filter(QueryBuilders.term()
-                            .field("categoryCodes")
-                            .value(categoryCode)
-                            .build()._toQuery()
-                    );
+        long updated = 0;
+        List<FieldValue> searchAfter = null;
+        while (true) {
+            List<FieldValue> after = searchAfter;
+            SearchResponse<ProductDocument> page = elasticsearchClient.search(s -> {
+                s.index(index)
+                        .query(q -> q.constantScore(c -> c.filter(affected)))
+                        .source(src -> src.filter(f -> f.includes("categoryCodes")))
+                        .sort(so -> so.field(f -> f.field("code").order(SortOrder.Asc)))
+                        .size(CATEGORY_REINDEX_BATCH);
+                if (after != null) {
+                    s.searchAfter(after);
                 }
-                hasQuery = true;
+                return s;
+            }, ProductDocument.class);
+
+            List<Hit<ProductDocument>> hits = page.hits().hits();
+            if (hits.isEmpty()) {
+                break;
             }
+            List<BulkOperation> operations = hits.stream()
+                    .map(hit -> {
+                        Set<Long> categoryCodes = hit.source() != null ? hit.source().getCategoryCodes() : null;
+                        Map<String, Object> partial = Map.of("ancestorCategoryCodes", ancestry.closureOf(categoryCodes));
+                        return BulkOperation.of(op -> op.update(u -> u
+                                .index(index)
+                                .id(hit.id())
+                                .action(a -> a.doc(partial))));
+                    })
+                    .toList();
+            updated += bulkCategoryUpdates(index, categoryCode, operations);
+            searchAfter = hits.get(hits.size() - 1).sort();
+        }
+        return updated;
+    }
 
-            // If no filters, match all products
-            if (!hasQuery) {
-                boolQuery.must(QueryBuilders.matchAll().build()._toQuery());
+    /**
+     * Sends one batch of ancestor updates and returns how many were applied. Items rejected with 429 or a 5xx
+     * are resent with the bulk indexer's backoff; anything still failing after that fails the refresh, so the
+     * caller learns the category is not fully reindexed. Products deleted since the search (404) are skipped.
+     */
+    private long bulkCategoryUpdates(String index, Long categoryCode, List<BulkOperation> operations) throws IOException {
+        long applied = 0;
+        long delay = bulkRetryInitialDelayMs;
+        List<BulkOperation> pending = operations;
+        for (int attempt = 0; ; attempt++) {
+            List<BulkOperation> batch = pending;
+            BulkResponse response = elasticsearchClient.bulk(b -> b.operations(batch).refresh(Refresh.WaitFor));
+            List<BulkOperation> retryable = new ArrayList<>();
+            List<String> errors = new ArrayList<>();
+            for (int i = 0; i < response.items().size(); i++) {
+                BulkResponseItem item = response.items().get(i);
+                if (item.error() == null) {
+                    applied++;
+                } else if (item.status() == 429 || item.status() >= 500) {
+                    retryable.add(batch.get(i));
+                    errors.add(item.id() + ": " + item.error().reason());
+                } else if (item.status() != 404) {
+                    errors.add(item.id() + ": " + item.error().reason());
+                }
+            }
+            if (errors.isEmpty()) {
+                return applied;
+            }
+            if (retryable.size() < errors.size() || attempt >= bulkRetryMaxRetries) {
+                throw new IOException("Category " + categoryCode + " refresh failed for " + errors.size()
+                        + " products in " + index + ", first: " + errors.get(0));
+            }
+            log.warn("INDEX: Category {} refresh retrying {} rejected items in {} after {} ms",
+                    categoryCode, retryable.size(), index, delay);
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Category " + categoryCode + " refresh interrupted", e);
             }
+            delay *= 2;
+            pending = retryable;
+        }
+    }
 
-            SearchRequest request = SearchRequest.of(s -> s
-                    .index(INDEX_NAME)
-                    .query(boolQuery.build()._toQuery())
-                    .from(page * size)
-                    .size(size)
-            );
+    // Category changes recorded by the job, applied to the given index
+    private void refreshChangedCategories(ProductIndexJob job, String index) throws IOException {
+        Long categoryCode = job.nextChangedCategory();
+        if (categoryCode == null) {
+            return;
+        }
+        CategoryAncestry ancestry = productDocumentSource.loadAncestry();
+        // The generation is built without refreshes, make every document written so far searchable first
+        elasticsearchClient.indices().refresh(r -> r.index(index));
+        for (; categoryCode != null; categoryCode = job.nextChangedCategory()) {
+            long updated = refreshCategory(index, categoryCode, ancestry);
+            log.info("INDEX: Category {} refresh updated {} products in {}", categoryCode, updated, index);
+        }
+    }
 
-            SearchResponse<ProductDocument> response =
-                    elasticsearchClient.search(request, ProductDocument.class);
+    @Override
+    public String updatePopularity(Map<Long, Long> unitsSold) {
+        Map<Long, Long> changed = productPopularity.diff(unitsSold);
+        String result = applyPopularity(changed);
+        productPopularity.replace(unitsSold);
+        return result;
+    }
 
-            List<ProductDocument> products = response.hits().hits().stream()
-                    .map(hit -> hit.source())
-                    .collect(Collectors.toList());
+    String applyPopularity(Map<Long, Long> changed) {
+        try {
+            List<Map.Entry<Long, Long>> entries = new ArrayList<>(changed.entrySet());
+            long missing = 0;
+            for (int from = 0; from < entries.size(); from += POPULARITY_BATCH) {
+                List<Map.Entry<Long, Long>> batch = entries.subList(from, Math.min(from + POPULARITY_BATCH, entries.size()));
+                missing += bulkPopularity(ProductIndexManager.ALIAS, batch);
+                ProductIndexJob job = currentJob;
+                if (job != null && job.isRunning()) {
+                    bulkPopularity(job.getIndex(), batch);
+                }
+            }
+            if (!changed.isEmpty()) {
+                searchResultCache.bumpGeneration("popularity");
+            }
+            log.info("INDEX: Popularity updated - changed: {}, not indexed: {}", changed.size(), missing);
+            return "Popularity updated. Changed: " + changed.size();
+        } catch (Exception e) {
+            throw new RuntimeException("Popularity update error: " + e.getMessage(), e);
+        }
+    }
 
-            long totalHits = response.hits().total() != null ?
-                    response.hits().total().value() : 0;
-            int totalPages = (int) Math.ceil((double) totalHits / size);
+    /**
+     * Units sold as currently indexed, for products with any. The baseline popularity updates are diffed against.
+     */
+    @Override
+    public Map<Long, Long> indexedPopularity() {
+        try {
+            Map<Long, Long> unitsSold = new HashMap<>();
+            List<FieldValue> searchAfter = null;
+            while (true) {
+                List<FieldValue> after = searchAfter;
+                SearchResponse<ProductDocument> page = elasticsearchClient.search(s -> {
+                    s.index(ProductIndexManager.ALIAS)
+                            .query(q -> q.range(r -> r.number(n -> n.field(ProductPopularity.FIELD).gt(0.0))))
+                            .source(src -> src.filter(f -> f.includes("code", ProductPopularity.FIELD)))
+                            .sort(so -> so.field(f -> f.field("code").order(SortOrder.Asc)))
+                            .size(POPULARITY_BATCH);
+                    if (after != null) {
+                        s.searchAfter(after);
+                    }
+                    return s;
+                }, ProductDocument.class);
 
-            log.info("SEARCH: Found {} products, totalHits: {}, totalPages: {}",
-                    products.size(), totalHits, totalPages);
+                List<Hit<ProductDocument>> hits = page.hits().hits();
+                for (Hit<ProductDocument> hit : hits) {
+                    ProductDocument product = hit.source();
+                    if (product != null && product.getCode() != null && product.getPopularity() != null) {
+                        unitsSold.put(product.getCode(), product.getPopularity());
+                    }
+                }
+                if (hits.size() < POPULARITY_BATCH) {
+                    return unitsSold;
+                }
+                searchAfter = hits.get(hits.size() - 1).sort();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Popularity read error: " + e.getMessage(), e);
+        }
+    }
 
-            return ProductSearchResponse.builder()
-                    .products(products)
-                    .currentPage(page)
-                    .totalPage(totalPages)
-                    .totalElements(totalHits)
-                    .build();
+    // Partial updates, returns how many products are not in the index (sold but deleted, or not indexed yet)
+    private long bulkPopularity(String index, List<Map.Entry<Long, Long>> batch) throws IOException {
+        List<BulkOperation> operations = batch.stream()
+                .map(entry -> BulkOperation.of(op -> op.update(u -> u
+                        .index(index)
+                        .id(String.valueOf(entry.getKey()))
+                        .action(a -> a.doc(Map.of(ProductPopularity.FIELD, entry.getValue()))))))
+                .toList();
+        BulkResponse response = elasticsearchClient.bulk(b -> b.operations(operations).refresh(Refresh.WaitFor));
+        long missing = 0;
+        for (var item : response.items()) {
+            if (item.status() == 404) {
+                missing++;
+            } else if (item.error() != null) {
+                log.warn("INDEX: Popularity update failed for {} in {}: {}", item.id(), index, item.error().reason());
+            }
+        }
+        return missing;
+    }
 
+    @Override
+    public ProductSearchResponse search(String keyword, Long categoryCode, List<String> brands,
+                                        Double minPrice, Double maxPrice, int page, int size) {
+        try {
+            return searchOrThrow(keyword, categoryCode, brands, minPrice, maxPrice, page, size);
         } catch (Exception e) {
             log.error("SEARCH: Search error: {}", e.getMessage(), e);
             return ProductSearchResponse.builder()
@@ -164,30 +505,247 @@ public class DefaultProductSearchService implements ProductIndexService {
                     .build();
         }
     }
-    private List<ProductDocument> getAllProducts() {
-        List<ProductDocument> documentList = new ArrayList<>();
-        int page = 0;
-        int size = 50;
-        ProductPageableResponse response;
-        do {
-            response = productServiceClient.getProducts(page, size, "ASC", "id");
-            response.getProducts().forEach(product -> {
-                ProductDocument productDocument = ProductDocument.builder()
-                        .id(String.valueOf(product.getCode()))
-                        .code(Long.valueOf(product.getCode()))
-                        .title(product.getTitle())
-                        .name(product.getName())
-                        .description(product.getDescription())
-                        .imageUrl(product.getImageUrl())
-                        .brand(product.getBrand())
-                        .price(product.getPrice())
-                        .categoryCodes(product.getCategoryCodes())
-                        .build();
-                documentList.add(productDocument);
+
+    /**
+     * Same as search, but a failed query is thrown instead of answered with an empty page,
+     * so the fallback service can tell an outage from an empty result.
+     */
+    ProductSearchResponse searchOrThrow(String keyword, Long categoryCode, List<String> brands,
+                                        Double minPrice, Double maxPrice, int page, int size) {
+        log.info("SEARCH: Searching products - keyword: {}, categoryCode: {}, brands: {}, price: {}-{}, page: {}, size: {}",
+                keyword, categoryCode, brands, minPrice, maxPrice, page, size);
+        String key = SearchResultCache.key(keyword, categoryCode, brands, minPrice, maxPrice, page, size);
+        return searchResultCache.get(key, () -> executeSearch(keyword, categoryCode, brands, minPrice, maxPrice, page, size));
+    }
+
+    private ProductSearchResponse executeSearch(String keyword, Long categoryCode, List<String> brands,
+                                                Double minPrice, Double maxPrice, int page, int size) {
+        try {
+            ProductFacets.Selection selection = new ProductFacets.Selection(brands, minPrice, maxPrice);
+            SearchRequest request = SearchRequest.of(s -> {
+                s.index(ProductIndexManager.ALIAS)
+                        .query(buildQuery(keyword, categoryCode))
+                        .source(src -> src.filter(f -> f.excludes(ProductVectorizer.FIELD)))
+                        .aggregations(productFacets.aggregations(selection))
+                        .from(page * size)
+                        .size(size);
+                productFacets.postFilter(selection).ifPresent(s::postFilter);
+                return s;
             });
-            page++;
-        } while (page < response.getTotalPage());
-        return documentList;
+
+            SearchResponse<ProductDocument> response =
+                    elasticsearchClient.search(request, ProductDocument.class);
+            productPopularity.recordTook(response.took());
+            return toSearchResponse(response.hits(), response.aggregations(), page, size);
+        } catch (IOException e) {
+            // Thrown, not returned: failed searches must not be cached
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ProductSearchResponse toSearchResponse(HitsMetadata<ProductDocument> hits, Map<String, Aggregate> aggregations,
+                                                   int page, int size) {
+        List<ProductDocument> products = hits.hits().stream()
+                .map(hit -> hit.source())
+                .collect(Collectors.toList());
+
+        long totalHits = hits.total() != null ? hits.total().value() : 0;
+        int totalPages = (int) Math.ceil((double) totalHits / size);
+
+        log.info("SEARCH: Found {} products, totalHits: {}, totalPages: {}",
+                products.size(), totalHits, totalPages);
+
+        return ProductSearchResponse.builder()
+                .products(products)
+                .currentPage(page)
+                .totalPage(totalPages)
+                .totalElements(totalHits)
+                .facets(productFacets.read(aggregations))
+                .build();
+    }
+
+    @Override
+    public List<MultiSearchItemResponse> multiSearch(List<ProductSearchRequest> searches) {
+        if (searches == null || searches.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (searches.size() > MAX_MULTI_SEARCH) {
+            throw new IllegalArgumentException("At most " + MAX_MULTI_SEARCH + " searches can be sent at once");
+        }
+        log.info("SEARCH: Multi search - searches: {}", searches.size());
+        // Identical specs share a key, so they are executed once and answered twice
+        Map<String, ProductSearchRequest> byKey = new LinkedHashMap<>();
+        List<String> keys = searches.stream()
+                .map(spec -> {
+                    String key = SearchResultCache.key(spec.getKeyword(), spec.getCategoryCode(), spec.getBrand(),
+                            spec.getMinPrice(), spec.getMaxPrice(), spec.getPage(), spec.getSize());
+                    byKey.putIfAbsent(key, spec);
+                    return key;
+                })
+                .toList();
+
+        Map<String, String> errors = new HashMap<>();
+        Map<String, ProductSearchResponse> results;
+        try {
+            results = searchResultCache.getAll(byKey.keySet(), missing -> executeMultiSearch(missing, byKey, errors));
+        } catch (Exception e) {
+            log.error("SEARCH: Multi search error: {}", e.getMessage(), e);
+            results = Collections.emptyMap();
+            byKey.keySet().forEach(key -> errors.putIfAbsent(key, e.getMessage()));
+        }
+        Map<String, ProductSearchResponse> found = results;
+        return keys.stream()
+                .map(key -> found.containsKey(key)
+                        ? MultiSearchItemResponse.ok(found.get(key))
+                        : MultiSearchItemResponse.failed(errors.getOrDefault(key, "Search failed")))
+                .toList();
     }
 
+    // One _msearch for every spec the cache did not have; failed items are reported through errors and not cached
+    private Map<String, ProductSearchResponse> executeMultiSearch(List<String> keys, Map<String, ProductSearchRequest> byKey,
+                                                                  Map<String, String> errors) {
+        List<RequestItem> items = keys.stream()
+                .map(key -> {
+                    ProductSearchRequest spec = byKey.get(key);
+                    ProductFacets.Selection selection = new ProductFacets.Selection(spec.getBrand(), spec.getMinPrice(), spec.getMaxPrice());
+                    return RequestItem.of(r -> r
+                            .header(h -> h.index(ProductIndexManager.ALIAS))
+                            .body(b -> {
+                                b.query(buildQuery(spec.getKeyword(), spec.getCategoryCode()))
+                                        .source(src -> src.filter(f -> f.excludes(ProductVectorizer.FIELD)))
+                                        .aggregations(productFacets.aggregations(selection))
+                                        .from(spec.getPage() * spec.getSize())
+                                        .size(spec.getSize());
+                                productFacets.postFilter(selection).ifPresent(b::postFilter);
+                                return b;
+                            }));
+                })
+                .toList();
+        MsearchResponse<ProductDocument> response;
+        try {
+            response = elasticsearchClient.msearch(m -> m.searches(items), ProductDocument.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Map<String, ProductSearchResponse> results = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            String key = keys.get(i);
+            MultiSearchResponseItem<ProductDocument> item = response.responses().get(i);
+            if (item.isResult()) {
+                MultiSearchItem<ProductDocument> result = item.result();
+                productPopularity.recordTook(result.took());
+                ProductSearchRequest spec = byKey.get(key);
+                results.put(key, toSearchResponse(result.hits(), result.aggregations(), spec.getPage(), spec.getSize()));
+            } else {
+                String reason = item.failure().error().reason();
+                log.warn("SEARCH: Multi search item failed: {}", reason);
+                errors.put(key, reason != null ? reason : item.failure().error().type());
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public ProductSearchResponse searchAfter(String keyword, Long categoryCode, int requestedSize, String cursor) {
+        // Bad input is the caller's error, thrown before anything is opened
+        int size = SearchCursorCodec.pageSize(requestedSize);
+        SearchCursorCodec.SearchCursor decoded = cursor != null ? searchCursorCodec.decode(cursor) : null;
+        try {
+            SearchCursorCodec.SearchCursor state = decoded != null
+                    ? decoded
+                    : new SearchCursorCodec.SearchCursor(openPointInTime(), keyword, categoryCode, null);
+            log.info("SEARCH: Cursor search - keyword: {}, categoryCode: {}, size: {}, continued: {}",
+                    state.getKeyword(), state.getCategoryCode(), size, cursor != null);
+
+            SearchResponse<ProductDocument> response = elasticsearchClient.search(s -> {
+                s.pit(p -> p.id(state.getPitId()).keepAlive(t -> t.time(PIT_KEEP_ALIVE)))
+                        .query(buildQuery(state.getKeyword(), state.getCategoryCode()))
+                        .source(src -> src.filter(f -> f.excludes(ProductVectorizer.FIELD)))
+                        // code breaks score ties so every hit has a unique, stable position
+                        .sort(so -> so.score(sc -> sc.order(SortOrder.Desc)))
+                        .sort(so -> so.field(f -> f.field("code").order(SortOrder.Asc)))
+                        .size(size);
+                if (state.getSortValues() != null) {
+                    s.searchAfter(SearchCursorCodec.toFieldValues(state.getSortValues()));
+                }
+                return s;
+            }, ProductDocument.class);
+
+            List<Hit<ProductDocument>> hits = response.hits().hits();
+            String pitId = response.pitId() != null ? response.pitId() : state.getPitId();
+            String nextCursor = null;
+            if (hits.size() == size) {
+                nextCursor = searchCursorCodec.encode(new SearchCursorCodec.SearchCursor(pitId,
+                        state.getKeyword(), state.getCategoryCode(),
+                        SearchCursorCodec.toRaw(hits.get(hits.size() - 1).sort())));
+            } else {
+                closePointInTime(pitId);
+            }
+
+            long totalHits = response.hits().total() != null ? response.hits().total().value() : 0;
+            log.info("SEARCH: Cursor search found {} products, totalHits: {}, hasNext: {}",
+                    hits.size(), totalHits, nextCursor != null);
+            return ProductSearchResponse.builder()
+                    .products(hits.stream().map(Hit::source).collect(Collectors.toList()))
+                    .totalElements(totalHits)
+                    .nextCursor(nextCursor)
+                    .build();
+        } catch (ElasticsearchException e) {
+            if (decoded != null && e.status() == 404) {
+                // The point in time behind the cursor expired or was closed
+                throw new SearchCursorExpiredException("Search cursor expired, start again without a cursor", e);
+            }
+            throw new RuntimeException("Cursor search error: " + e.getMessage(), e);
+        } catch (Exception e) {
+            throw new RuntimeException("Cursor search error: " + e.getMessage(), e);
+        }
+    }
+
+    private Query buildQuery(String keyword, Long categoryCode) {
+        BoolQuery.Builder boolQuery = new BoolQuery.Builder();
+        boolean hasQuery = false;
+
+        // Add keyword search if provided
+        if (keyword != null && !keyword.isBlank()) {
+            boolQuery.must(QueryBuilders.multiMatch()
+                    .query(keyword)
+                    .fields("name", "description", "brand", "title")
+                    .fuzziness("AUTO")
+                    .build()._toQuery()
+            );
+            hasQuery = true;
+        }
+
+        // Add category filter if provided: ancestorCategoryCodes already covers all descendant categories
+        if (categoryCode != null) {
+            boolQuery.filter(QueryBuilders.term()
+                    .field("ancestorCategoryCodes")
+                    .value(categoryCode)
+                    .build()._toQuery()
+            );
+            hasQuery = true;
+        }
+
+        // If no filters, match all products
+        if (!hasQuery) {
+            boolQuery.must(QueryBuilders.matchAll().build()._toQuery());
+        }
+        return productPopularity.rank(boolQuery.build()._toQuery());
+    }
+
+    private String openPointInTime() throws IOException {
+        return elasticsearchClient.openPointInTime(o -> o
+                .index(ProductIndexManager.ALIAS)
+                .keepAlive(t -> t.time(PIT_KEEP_ALIVE))).id();
+    }
+
+    private void closePointInTime(String pitId) {
+        try {
+            elasticsearchClient.closePointInTime(c -> c.id(pitId));
+        } catch (Exception e) {
+            // Expires on its own after the keep-alive
+            log.debug("SEARCH: Failed to close point in time: {}", e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,184 @@
+package com.shop.search_service.product.service.impl;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import com.shop.search_service.product.dto.request.ProductSearchRequest;
+import com.shop.search_service.product.dto.response.IndexJobResponse;
+import com.shop.search_service.product.dto.response.MultiSearchItemResponse;
+import com.shop.search_service.product.dto.response.ProductSearchResponse;
+import com.shop.search_service.product.dto.response.ProductSuggestionResponse;
+import com.shop.search_service.product.model.ProductDocument;
+import com.shop.search_service.product.popularity.ProductPopularity;
+import com.shop.search_service.product.service.ProductIndexService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Elasticsearch first, embedded Lucene when the cluster is unreachable.
+ * Writes go to both so the local index is warm when it is needed.
+ */
+@Service
+@Primary
+@ConditionalOnExpression("'${search.engine:elasticsearch}' == 'elasticsearch' and ${search.lucene.fallback-enabled:false}")
+@RequiredArgsConstructor
+@Slf4j
+public class FallbackProductSearchService implements ProductIndexService {
+
+    private final DefaultProductSearchService elasticsearch;
+    private final LuceneProductSearchService lucene;
+    private final ElasticsearchClient elasticsearchClient;
+    private final ProductPopularity productPopularity;
+
+    @Value("${search.lucene.fallback-check-interval:PT5S}")
+    private Duration checkInterval;
+
+    private volatile boolean elasticsearchAvailable = true;
+    private volatile long checkedAt;
+
+    @Override
+    public String indexProduct(ProductDocument product) {
+        try {
+            lucene.indexProduct(product);
+        } catch (Exception e) {
+            log.warn("INDEX: Lucene mirror write failed for {}: {}", product.getId(), e.getMessage());
+        }
+        return elasticsearch.indexProduct(product);
+    }
+
+    @Override
+    public String applyChanges(List<ProductDocument> upserts, Collection<String> deletedIds) {
+        try {
+            lucene.applyChanges(upserts, deletedIds);
+        } catch (Exception e) {
+            log.warn("INDEX: Lucene mirror change apply failed: {}", e.getMessage());
+        }
+        return elasticsearch.applyChanges(upserts, deletedIds);
+    }
+
+    @Override
+    public String indexAll() {
+        lucene.indexAll();
+        return elasticsearch.indexAll();
+    }
+
+    @Override
+    public IndexJobResponse getIndexJob() {
+        return elasticsearch.getIndexJob();
+    }
+
+    @Override
+    public String reindexCategory(Long categoryCode) {
+        try {
+            lucene.reindexCategory(categoryCode);
+        } catch (Exception e) {
+            log.warn("INDEX: Lucene mirror category refresh failed for {}: {}", categoryCode, e.getMessage());
+        }
+        return elasticsearch.reindexCategory(categoryCode);
+    }
+
+    @Override
+    public String updatePopularity(Map<Long, Long> unitsSold) {
+        // Both engines share one snapshot, diff once and apply the same changes to each
+        Map<Long, Long> changed = productPopularity.diff(unitsSold);
+        try {
+            lucene.applyPopularity(changed);
+        } catch (Exception e) {
+            log.warn("INDEX: Lucene mirror popularity update failed: {}", e.getMessage());
+        }
+        String result = elasticsearch.applyPopularity(changed);
+        productPopularity.replace(unitsSold);
+        return result;
+    }
+
+    @Override
+    public Map<Long, Long> indexedPopularity() {
+        try {
+            return elasticsearch.indexedPopularity();
+        } catch (Exception e) {
+            log.warn("INDEX: Reading popularity from Elasticsearch failed, using the Lucene copy: {}", e.getMessage());
+            return lucene.indexedPopularity();
+        }
+    }
+
+    @Override
+    public ProductSearchResponse search(String keyword, Long categoryCode, List<String> brands,
+                                        Double minPrice, Double maxPrice, int page, int size) {
+        if (isElasticsearchAvailable()) {
+            try {
+                return elasticsearch.searchOrThrow(keyword, categoryCode, brands, minPrice, maxPrice, page, size);
+            } catch (Exception e) {
+                // The ping can pass while queries fail (red shards, timeouts): answer from Lucene instead of an empty page
+                markFailed(e);
+            }
+        }
+        return lucene.search(keyword, categoryCode, brands, minPrice, maxPrice, page, size);
+    }
+
+    @Override
+    public List<ProductDocument> similar(Long code, int size) {
+        return reader().similar(code, size);
+    }
+
+    @Override
+    public List<MultiSearchItemResponse> multiSearch(List<ProductSearchRequest> searches) {
+        return reader().multiSearch(searches);
+    }
+
+    @Override
+    public ProductSearchResponse searchAfter(String keyword, Long categoryCode, int size, String cursor) {
+        return reader().searchAfter(keyword, categoryCode, size, cursor);
+    }
+
+    @Override
+    public List<ProductSuggestionResponse> suggest(String prefix, int size) {
+        return reader().suggest(prefix, size);
+    }
+
+    private ProductIndexService reader() {
+        return isElasticsearchAvailable() ? elasticsearch : lucene;
+    }
+
+    // Rejected requests say nothing about the cluster, anything else counts as an outage until the next ping
+    private void markFailed(Exception e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ElasticsearchException rejected && rejected.status() < 500) {
+                log.warn("SEARCH: Elasticsearch rejected the search, answering from embedded Lucene: {}", e.getMessage());
+                return;
+            }
+        }
+        if (elasticsearchAvailable) {
+            log.warn("SEARCH: Elasticsearch search failed, serving reads from embedded Lucene: {}", e.getMessage());
+        }
+        elasticsearchAvailable = false;
+        checkedAt = System.currentTimeMillis();
+    }
+
+    // Ping at most once per interval, requests in between reuse the last answer
+    private boolean isElasticsearchAvailable() {
+        long now = System.currentTimeMillis();
+        if (now - checkedAt >= checkInterval.toMillis()) {
+            checkedAt = now;
+            boolean available;
+            try {
+                available = elasticsearchClient.ping().value();
+            } catch (Exception e) {
+                available = false;
+            }
+            if (available != elasticsearchAvailable) {
+                log.warn("SEARCH: Elasticsearch {}, serving reads from {}", available ? "is back" : "is unreachable",
+                        available ? "Elasticsearch" : "embedded Lucene");
+            }
+            elasticsearchAvailable = available;
+        }
+        return elasticsearchAvailable;
+    }
+}
@@ -0,0 +1,437 @@
+package com.shop.search_service.product.service.impl;
+
+import com.shop.search_service.product.cursor.SearchCursorCodec;
+import com.shop.search_service.product.dto.request.ProductSearchRequest;
+import com.shop.search_service.product.dto.response.IndexJobResponse;
+import com.shop.search_service.product.dto.response.MultiSearchItemResponse;
+import com.shop.search_service.product.dto.response.ProductSearchResponse;
+import com.shop.search_service.product.dto.response.ProductSuggestionResponse;
+import com.shop.search_service.product.index.CategoryAncestry;
+import com.shop.search_service.product.index.LuceneProductIndex;
+import com.shop.search_service.product.index.ProductDocumentSource;
+import com.shop.search_service.product.index.ProductIndexJob;
+import com.shop.search_service.product.model.ProductDocument;
+import com.shop.search_service.product.popularity.ProductPopularity;
+import com.shop.search_service.product.similar.ProductVectorizer;
+import com.shop.search_service.product.service.ProductIndexService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.DoublePoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queries.function.FunctionScoreQuery;
+import org.apache.lucene.search.*;
+import org.apache.lucene.util.BytesRef;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Embedded Lucene implementation of product search: same keyword, category and paging semantics
+ * as the Elasticsearch one, without an external node. Facets are not computed in this mode.
+ */
+@Service
+@ConditionalOnExpression(LuceneProductIndex.ENABLED)
+@RequiredArgsConstructor
+@Slf4j
+public class LuceneProductSearchService implements ProductIndexService {
+
+    private final LuceneProductIndex luceneProductIndex;
+    private final ProductDocumentSource productDocumentSource;
+    private final SearchCursorCodec searchCursorCodec;
+    private final ProductPopularity productPopularity;
+    private final ProductVectorizer productVectorizer;
+    private final ExecutorService indexJobExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "lucene-index-job"));
+    private volatile ProductIndexJob currentJob;
+
+    private static final String INDEX_NAME = "lucene";
+    private static final String NO_PIT = "lucene";
+    // Same ceiling as Elasticsearch's default index.max_result_window
+    private static final int MAX_RESULT_WINDOW = 10_000;
+    private static final int MAX_SUGGESTIONS = 10;
+    private static final int MAX_MULTI_SEARCH = 20;
+    private static final int MAX_SIMILAR = 50;
+    private static final int POPULARITY_BATCH = 500;
+    private static final Sort CURSOR_SORT = new Sort(SortField.FIELD_SCORE, new SortField(LuceneProductIndex.CODE, SortField.Type.LONG));
+
+    @Override
+    public String indexProduct(ProductDocument product) {
+        try {
+            productDocumentSource.complete(product);
+            luceneProductIndex.upsert(product);
+            return "Product indexed successfully: " + product.getId();
+        } catch (Exception e) {
+            throw new RuntimeException("Lucene index error: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String applyChanges(List<ProductDocument> upserts, Collection<String> deletedIds) {
+        try {
+            luceneProductIndex.apply(upserts, deletedIds);
+            return "Changes applied. Upserted: " + upserts.size() + ", deleted: " + deletedIds.size();
+        } catch (Exception e) {
+            throw new RuntimeException("Lucene change apply error: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized String indexAll() {
+        if (currentJob != null && currentJob.isRunning()) {
+            return "All products indexing already running. Job: " + currentJob.getJobId();
+        }
+        ProductIndexJob job = new ProductIndexJob(INDEX_NAME);
+        currentJob = job;
+        indexJobExecutor.submit(() -> runIndexAll(job));
+        log.info("INDEX: Lucene products indexing started - job: {}", job.getJobId());
+        return "All products indexing started. Job: " + job.getJobId();
+    }
+
+    private void runIndexAll(ProductIndexJob job) {
+        try {
+            productDocumentSource.readCatalog(documents -> {
+                try {
+                    luceneProductIndex.rebuild(documents, job);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            job.finish(ProductIndexJob.Status.COMPLETED);
+            log.info("INDEX: Lucene products indexing completed - documents: {}", job.getDocumentsIndexed().get());
+        } catch (Exception e) {
+            log.error("INDEX: Lucene products indexing failed - job: {}", job.getJobId(), e);
+            job.addError(e.getMessage());
+            job.finish(ProductIndexJob.Status.FAILED);
+        }
+    }
+
+    @Override
+    public IndexJobResponse getIndexJob() {
+        ProductIndexJob job = currentJob;
+        return job != null ? job.toResponse() : null;
+    }
+
+    @PreDestroy
+    public void shutdownIndexJobExecutor() {
+        indexJobExecutor.shutdownNow();
+    }
+
+    @Override
+    public String reindexCategory(Long categoryCode) {
+        try {
+            CategoryAncestry ancestry = productDocumentSource.loadAncestry();
+            Query affected = new BooleanQuery.Builder()
+                    .add(LongPoint.newExactQuery(LuceneProductIndex.ANCESTOR_CATEGORY_CODES, categoryCode), BooleanClause.Occur.SHOULD)
+                    .add(LongPoint.newExactQuery(LuceneProductIndex.CATEGORY_CODES, categoryCode), BooleanClause.Occur.SHOULD)
+                    .build();
+            int updated = luceneProductIndex.rewrite(affected,
+                    product -> contains(product.getCategoryCodes(), categoryCode)
+                            || contains(product.getAncestorCategoryCodes(), categoryCode),
+                    product -> product.setAncestorCategoryCodes(ancestry.closureOf(product.getCategoryCodes())));
+            log.info("INDEX: Lucene category {} refresh updated {} products", categoryCode, updated);
+            return "Category products reindexed. Total: " + updated;
+        } catch (Exception e) {
+            throw new RuntimeException("Category reindex error: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String updatePopularity(Map<Long, Long> unitsSold) {
+        Map<Long, Long> changed = productPopularity.diff(unitsSold);
+        String result = applyPopularity(changed);
+        productPopularity.replace(unitsSold);
+        return result;
+    }
+
+    String applyPopularity(Map<Long, Long> changed) {
+        try {
+            List<Long> codes = new ArrayList<>(changed.keySet());
+            long updated = 0;
+            for (int from = 0; from < codes.size(); from += POPULARITY_BATCH) {
+                Query batch = LongPoint.newSetQuery(LuceneProductIndex.CODE,
+                        codes.subList(from, Math.min(from + POPULARITY_BATCH, codes.size())));
+                updated += luceneProductIndex.rewrite(batch,
+                        product -> changed.containsKey(product.getCode()),
+                        product -> product.setPopularity(changed.get(product.getCode())));
+            }
+            log.info("INDEX: Lucene popularity updated - changed: {}, not indexed: {}", changed.size(), changed.size() - updated);
+            return "Popularity updated. Changed: " + changed.size();
+        } catch (Exception e) {
+            throw new RuntimeException("Popularity update error: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public ProductSearchResponse search(String keyword, Long categoryCode, List<String> brands,
+                                        Double minPrice, Double maxPrice, int page, int size) {
+        try {
+            log.info("SEARCH: Lucene search - keyword: {}, categoryCode: {}, brands: {}, price: {}-{}, page: {}, size: {}",
+                    keyword, categoryCode, brands, minPrice, maxPrice, page, size);
+            return luceneProductIndex.search(searcher ->
+                    search(searcher, keyword, categoryCode, brands, minPrice, maxPrice, page, size));
+        } catch (Exception e) {
+            log.error("SEARCH: Lucene search error: {}", e.getMessage(), e);
+            return ProductSearchResponse.builder()
+                    .products(Collections.emptyList())
+                    .currentPage(page)
+                    .totalPage(0)
+                    .totalElements(0L)
+                    .build();
+        }
+    }
+
+    @Override
+    public List<MultiSearchItemResponse> multiSearch(List<ProductSearchRequest> searches) {
+        if (searches == null || searches.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (searches.size() > MAX_MULTI_SEARCH) {
+            throw new IllegalArgumentException("At most " + MAX_MULTI_SEARCH + " searches can be sent at once");
+        }
+        log.info("SEARCH: Lucene multi search - searches: {}", searches.size());
+        try {
+            // In-process searches, nothing to batch: one acquired searcher, so every item sees the same reader generation
+            return luceneProductIndex.search(searcher -> {
+                List<MultiSearchItemResponse> results = new ArrayList<>(searches.size());
+                for (ProductSearchRequest spec : searches) {
+                    try {
+                        results.add(MultiSearchItemResponse.ok(search(searcher, spec.getKeyword(), spec.getCategoryCode(),
+                                spec.getBrand(), spec.getMinPrice(), spec.getMaxPrice(), spec.getPage(), spec.getSize())));
+                    } catch (Exception e) {
+                        log.warn("SEARCH: Lucene multi search item failed: {}", e.getMessage());
+                        results.add(MultiSearchItemResponse.failed(e.getMessage() != null ? e.getMessage() : "Search failed"));
+                    }
+                }
+                return results;
+            });
+        } catch (Exception e) {
+            log.error("SEARCH: Lucene multi search error: {}", e.getMessage(), e);
+            return searches.stream().map(spec -> MultiSearchItemResponse.failed(e.getMessage())).toList();
+        }
+    }
+
+    private ProductSearchResponse search(IndexSearcher searcher, String keyword, Long categoryCode, List<String> brands,
+                                         Double minPrice, Double maxPrice, int page, int size) throws IOException {
+        Query query = buildQuery(keyword, categoryCode, brands, minPrice, maxPrice);
+        int from = page * size;
+        int totalHits = searcher.count(query);
+        List<ProductDocument> products = List.of();
+        if (from < Math.min(totalHits, MAX_RESULT_WINDOW)) {
+            ScoreDoc[] hits = searcher.search(query, Math.min(from + size, MAX_RESULT_WINDOW)).scoreDocs;
+            products = toHits(searcher, Arrays.copyOfRange(hits, Math.min(from, hits.length), hits.length));
+        }
+        return ProductSearchResponse.builder()
+                .products(products)
+                .currentPage(page)
+                .totalPage((int) Math.ceil((double) totalHits / size))
+                .totalElements((long) totalHits)
+                .build();
+    }
+
+    @Override
+    public ProductSearchResponse searchAfter(String keyword, Long categoryCode, int requestedSize, String cursor) {
+        int size = SearchCursorCodec.pageSize(requestedSize);
+        SearchCursorCodec.SearchCursor state = cursor != null
+                ? searchCursorCodec.decode(cursor)
+                : new SearchCursorCodec.SearchCursor(NO_PIT, keyword, categoryCode, null);
+        FieldDoc after = null;
+        if (state.getSortValues() != null) {
+            if (state.getSortValues().size() != 2
+                    || !(state.getSortValues().get(0) instanceof Number score)
+                    || !(state.getSortValues().get(1) instanceof Number code)) {
+                throw new IllegalArgumentException("Invalid search cursor");
+            }
+            after = new FieldDoc(Integer.MAX_VALUE, score.floatValue(), new Object[]{score.floatValue(), code.longValue()});
+        }
+        FieldDoc searchAfter = after;
+        try {
+            Query query = buildQuery(state.getKeyword(), state.getCategoryCode(), null, null, null);
+            return luceneProductIndex.search(searcher -> {
+                TopFieldDocs page = searcher.searchAfter(searchAfter, query, size, CURSOR_SORT, true);
+                ScoreDoc[] hits = page.scoreDocs;
+                String nextCursor = null;
+                if (hits.length == size) {
+                    FieldDoc last = (FieldDoc) hits[hits.length - 1];
+                    nextCursor = searchCursorCodec.encode(new SearchCursorCodec.SearchCursor(NO_PIT,
+                            state.getKeyword(), state.getCategoryCode(), List.of(last.fields[0], last.fields[1])));
+                }
+                return ProductSearchResponse.builder()
+                        .products(toHits(searcher, hits))
+                        .totalElements((long) searcher.count(query))
+                        .nextCursor(nextCursor)
+                        .build();
+            });
+        } catch (Exception e) {
+            throw new RuntimeException("Lucene cursor search error: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<ProductDocument> similar(Long code, int size) {
+        try {
+            return productVectorizer.getQueryTimer().recordCallable(() -> luceneProductIndex.search(searcher -> {
+                Query self = new TermQuery(new Term(LuceneProductIndex.ID, String.valueOf(code)));
+                ScoreDoc[] source = searcher.search(self, 1).scoreDocs;
+                float[] vector = source.length > 0
+                        ? luceneProductIndex.toProduct(searcher.storedFields().document(source[0].doc)).getSimilarityVector()
+                        : null;
+                if (vector == null) {
+                    return Collections.<ProductDocument>emptyList();
+                }
+                Query others = new BooleanQuery.Builder()
+                        .add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST)
+                        .add(self, BooleanClause.Occur.MUST_NOT)
+                        .build();
+                int k = Math.min(Math.max(size, 1), MAX_SIMILAR);
+                return toHits(searcher, searcher.search(new KnnFloatVectorQuery(LuceneProductIndex.VECTOR, vector, k, others), k).scoreDocs);
+            }));
+        } catch (Exception e) {
+            log.error("SEARCH: Lucene similar products error for {}: {}", code, e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    @Override
+    public Map<Long, Long> indexedPopularity() {
+        try {
+            // Only products with sales carry a boost above the constant every unsold product gets.
+            // Boosts are positive doubles stored as raw bits, which order the same way as longs
+            Query sold = productPopularity.boost(1L) > productPopularity.boost(0L)
+                    ? NumericDocValuesField.newSlowRangeQuery(LuceneProductIndex.POPULARITY_BOOST,
+                            Double.doubleToRawLongBits(Math.nextUp(productPopularity.boost(0L))), Long.MAX_VALUE)
+                    : new MatchAllDocsQuery();
+            return luceneProductIndex.search(searcher -> {
+                Map<Long, Long> unitsSold = new HashMap<>();
+                int count = Math.max(1, searcher.getIndexReader().maxDoc());
+                for (ScoreDoc hit : searcher.search(sold, count).scoreDocs) {
+                    ProductDocument product = luceneProductIndex.toProduct(searcher.storedFields().document(hit.doc));
+                    if (product.getCode() != null && product.getPopularity() != null && product.getPopularity() > 0) {
+                        unitsSold.put(product.getCode(), product.getPopularity());
+                    }
+                }
+                return unitsSold;
+            });
+        } catch (Exception e) {
+            throw new RuntimeException("Popularity read error: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<ProductSuggestionResponse> suggest(String prefix, int size) {
+        if (prefix == null || prefix.isBlank()) {
+            return Collections.emptyList();
+        }
+        try {
+            String normalized = prefix.trim().toLowerCase(Locale.ROOT);
+            int limit = Math.min(Math.max(size, 1), MAX_SUGGESTIONS);
+            Query query = new PrefixQuery(new Term(LuceneProductIndex.SUGGEST, normalized));
+            return luceneProductIndex.search(searcher -> {
+                Map<String, ProductSuggestionResponse> suggestions = new LinkedHashMap<>();
+                // Over-fetch a little since several products can share the same suggestion text
+                for (ProductDocument product : toProducts(searcher, searcher.search(query, limit * 3).scoreDocs)) {
+                    product.getSuggest().stream()
+                            .filter(input -> input.toLowerCase(Locale.ROOT).startsWith(normalized))
+                            .findFirst()
+                            .ifPresent(text -> suggestions.putIfAbsent(text, ProductSuggestionResponse.builder()
+                                    .text(text)
+                                    .code(product.getCode())
+                                    .build()));
+                    if (suggestions.size() == limit) {
+                        break;
+                    }
+                }
+                return new ArrayList<>(suggestions.values());
+            });
+        } catch (Exception e) {
+            log.error("SEARCH: Lucene suggest error for prefix {}: {}", prefix, e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Mirrors the Elasticsearch query: fuzzy (AUTO) multi-field keyword match, category closure term,
+     * brand and price filters.
+     */
+    private Query buildQuery(String keyword, Long categoryCode, List<String> brands, Double minPrice, Double maxPrice)
+            throws IOException {
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        boolean hasQuery = false;
+
+        if (keyword != null && !keyword.isBlank()) {
+            BooleanQuery.Builder keywordQuery = new BooleanQuery.Builder();
+            for (String token : analyze(keyword)) {
+                for (String field : LuceneProductIndex.TEXT_FIELDS) {
+                    keywordQuery.add(new FuzzyQuery(new Term(field, token), autoFuzziness(token)), BooleanClause.Occur.SHOULD);
+                }
+            }
+            query.add(keywordQuery.build(), BooleanClause.Occur.MUST);
+            hasQuery = true;
+        }
+        if (categoryCode != null) {
+            query.add(LongPoint.newExactQuery(LuceneProductIndex.ANCESTOR_CATEGORY_CODES, categoryCode), BooleanClause.Occur.FILTER);
+            hasQuery = true;
+        }
+        if (brands != null && !brands.isEmpty()) {
+            query.add(new TermInSetQuery(LuceneProductIndex.BRAND_KEYWORD,
+                    brands.stream().map(BytesRef::new).collect(Collectors.toList())), BooleanClause.Occur.FILTER);
+        }
+        if (minPrice != null || maxPrice != null) {
+            double lower = minPrice != null ? minPrice : Double.NEGATIVE_INFINITY;
+            double upper = maxPrice != null ? maxPrice : Double.POSITIVE_INFINITY;
+            query.add(DoublePoint.newRangeQuery(LuceneProductIndex.PRICE, lower, upper), BooleanClause.Occur.FILTER);
+        }
+        if (!hasQuery) {
+            query.add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST);
+        }
+        if (productPopularity.isEnabled()) {
+            return FunctionScoreQuery.boostByValue(query.build(), DoubleValuesSource.fromDoubleField(LuceneProductIndex.POPULARITY_BOOST));
+        }
+        return query.build();
+    }
+
+    private List<String> analyze(String text) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        try (TokenStream stream = luceneProductIndex.getAnalyzer().tokenStream("name", text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                tokens.add(term.toString());
+            }
+            stream.end();
+        }
+        return tokens;
+    }
+
+    // Elasticsearch AUTO fuzziness: exact up to 2 chars, one edit up to 5, two beyond
+    private static int autoFuzziness(String token) {
+        return token.length() <= 2 ? 0 : token.length() <= 5 ? 1 : 2;
+    }
+
+    // Documents returned to clients: same as toProducts without the vector
+    private List<ProductDocument> toHits(IndexSearcher searcher, ScoreDoc[] hits) throws IOException {
+        List<ProductDocument> products = toProducts(searcher, hits);
+        products.forEach(product -> product.setSimilarityVector(null));
+        return products;
+    }
+
+    private boolean contains(Collection<Long> codes, Long code) {
+        return codes != null && codes.contains(code);
+    }
+
+    private List<ProductDocument> toProducts(IndexSearcher searcher, ScoreDoc[] hits) throws IOException {
+        List<ProductDocument> products = new ArrayList<>(hits.length);
+        for (ScoreDoc hit : hits) {
+            products.add(luceneProductIndex.toProduct(searcher.storedFields().document(hit.doc)));
+        }
+        return products;
+    }
+}
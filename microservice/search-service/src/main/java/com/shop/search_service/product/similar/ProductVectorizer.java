@@ -0,0 +1,127 @@
+package com.shop.search_service.product.similar;
+
+import com.shop.search_service.product.model.ProductDocument;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns a product into a fixed-size vector for "similar items", locally and on CPU only.
+ * Feature hashing: every token of name, title, brand and description, plus each category, is hashed
+ * into one of {@link #DIMS} buckets with a hash-derived sign; term frequency is dampened with log,
+ * fields are weighted, and the result is L2-normalized so cosine similarity compares content, not length.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductVectorizer {
+
+    // Must match dims of similarityVector in the index template
+    public static final int DIMS = 256;
+    public static final String FIELD = "similarityVector";
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "the", "of", "for", "with", "in", "on", "to", "by", "or", "is", "at", "from");
+    private static final float NAME_WEIGHT = 3f;
+    private static final float TITLE_WEIGHT = 2f;
+    private static final float BRAND_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    private static final float CATEGORY_WEIGHT = 2f;
+
+    private final MeterRegistry meterRegistry;
+    private Timer vectorizeTimer;
+    private Timer queryTimer;
+
+    @PostConstruct
+    void init() {
+        vectorizeTimer = Timer.builder("search.similar.vectorize")
+                .description("Time to build one product vector")
+                .register(meterRegistry);
+        queryTimer = Timer.builder("search.similar.query")
+                .description("Similar products lookup, source vector fetch plus kNN search")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    public Timer getQueryTimer() {
+        return queryTimer;
+    }
+
+    /**
+     * Returns null when the product has no usable text, a zero vector cannot be compared by cosine.
+     */
+    public float[] vectorize(ProductDocument product) {
+        long start = System.nanoTime();
+        try {
+            Map<String, Float> features = new HashMap<>();
+            addText(features, product.getName(), NAME_WEIGHT);
+            addText(features, product.getTitle(), TITLE_WEIGHT);
+            addText(features, product.getDescription(), DESCRIPTION_WEIGHT);
+            if (product.getBrand() != null && !product.getBrand().isBlank()) {
+                // Whole brand as one feature, so "apple" the brand and "apple" in a description stay apart
+                features.merge("brand:" + product.getBrand().trim().toLowerCase(Locale.ROOT), BRAND_WEIGHT, Float::sum);
+            }
+            // Direct categories only: the vector then depends on the product alone and survives category tree moves
+            if (product.getCategoryCodes() != null) {
+                product.getCategoryCodes().forEach(code -> features.merge("category:" + code, CATEGORY_WEIGHT, Float::sum));
+            }
+            return hash(features);
+        } finally {
+            vectorizeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void addText(Map<String, Float> features, String text, float weight) {
+        if (text == null || text.isBlank()) {
+            return;
+        }
+        Map<String, Integer> counts = new HashMap<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (token.length() > 1 && !STOP_WORDS.contains(token)) {
+                counts.merge(token, 1, Integer::sum);
+            }
+        }
+        counts.forEach((token, count) -> features.merge(token, weight * (1f + (float) Math.log(count)), Float::sum));
+    }
+
+    private float[] hash(Map<String, Float> features) {
+        if (features.isEmpty()) {
+            return null;
+        }
+        float[] vector = new float[DIMS];
+        features.forEach((feature, value) -> {
+            int h = mix(feature.hashCode());
+            // Low bits pick the bucket, the top bit the sign, so collisions cancel out on average
+            vector[Math.floorMod(h, DIMS)] += h < 0 ? -value : value;
+        });
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm == 0) {
+            return null;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < DIMS; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    // murmur3 finalizer, String.hashCode alone clusters short tokens
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
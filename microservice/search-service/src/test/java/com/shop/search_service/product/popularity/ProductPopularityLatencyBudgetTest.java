@@ -0,0 +1,121 @@
+package com.shop.search_service.product.popularity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shop.search_service.product.dto.response.ProductSearchResponse;
+import com.shop.search_service.product.index.LuceneProductIndex;
+import com.shop.search_service.product.model.ProductDocument;
+import com.shop.search_service.product.service.impl.LuceneProductSearchService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Popularity-ranked page searches on the embedded engine must stay within search.popularity.latency-budget
+ * at the 95th percentile, on a catalog large enough for the function score to matter.
+ */
+class ProductPopularityLatencyBudgetTest {
+
+    private static final int PRODUCTS = 20_000;
+    private static final int WARMUP_QUERIES = 300;
+    private static final int MEASURED_QUERIES = 500;
+    private static final String[] WORDS = {"phone", "laptop", "cable", "charger", "case", "screen", "camera", "speaker",
+            "headphones", "keyboard", "mouse", "monitor", "tablet", "watch", "battery", "adapter", "router", "drive"};
+    private static final String[] BRANDS = {"acme", "globex", "initech", "umbrella", "hooli", "stark", "wayne", "tyrell"};
+
+    @TempDir
+    Path indexPath;
+
+    private final Random random = new Random(42);
+    private Duration latencyBudget;
+    private LuceneProductIndex index;
+    private LuceneProductSearchService searchService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        latencyBudget = Duration.parse(PropertiesLoaderUtils.loadProperties(new ClassPathResource("application.properties"))
+                .getProperty("search.popularity.latency-budget"));
+
+        ProductPopularity popularity = new ProductPopularity(new SimpleMeterRegistry(), null);
+        ReflectionTestUtils.setField(popularity, "enabled", true);
+        ReflectionTestUtils.setField(popularity, "factor", 1.0f);
+
+        index = new LuceneProductIndex(new ObjectMapper(), popularity);
+        ReflectionTestUtils.setField(index, "path", indexPath.toString());
+        ReflectionTestUtils.setField(index, "refreshIntervalMs", 60_000L);
+        ReflectionTestUtils.setField(index, "commitIntervalMs", 60_000L);
+        ReflectionTestUtils.invokeMethod(index, "open");
+
+        List<ProductDocument> products = new ArrayList<>(PRODUCTS);
+        for (long code = 1; code <= PRODUCTS; code++) {
+            products.add(product(code));
+        }
+        index.apply(products, List.of());
+
+        searchService = new LuceneProductSearchService(index, null, null, popularity, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(index, "close");
+    }
+
+    @Test
+    void popularityRankedSearchesStayWithinTheLatencyBudget() {
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            search();
+        }
+        long[] tookNanos = new long[MEASURED_QUERIES];
+        for (int i = 0; i < MEASURED_QUERIES; i++) {
+            long start = System.nanoTime();
+            ProductSearchResponse response = search();
+            tookNanos[i] = System.nanoTime() - start;
+            assertThat(response.getTotalElements()).isPositive();
+        }
+        Arrays.sort(tookNanos);
+        Duration p95 = Duration.ofNanos(tookNanos[(int) Math.ceil(MEASURED_QUERIES * 0.95) - 1]);
+
+        assertThat(p95).as("p95 of popularity-ranked searches").isLessThanOrEqualTo(latencyBudget);
+    }
+
+    // Keyword search, half of them also filtered by category, first or second page
+    private ProductSearchResponse search() {
+        String keyword = WORDS[random.nextInt(WORDS.length)];
+        Long categoryCode = random.nextBoolean() ? (long) random.nextInt(100) : null;
+        return searchService.search(keyword, categoryCode, null, null, null, random.nextInt(2), 20);
+    }
+
+    private ProductDocument product(long code) {
+        String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+        String brand = BRANDS[random.nextInt(BRANDS.length)];
+        long category = random.nextInt(100);
+        return ProductDocument.builder()
+                .id(String.valueOf(code))
+                .code(code)
+                .name(name)
+                .title(brand + " " + name)
+                .description("The " + name + " by " + brand)
+                .brand(brand)
+                .price(1 + random.nextInt(1000) * 1.0)
+                .categoryCodes(Set.of(category))
+                .ancestorCategoryCodes(Set.of(category))
+                // Long tail: most products sell little, a few sell a lot
+                .popularity((long) (Math.pow(random.nextDouble(), 4) * 10_000))
+                .build();
+    }
+}